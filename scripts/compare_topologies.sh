@@ -0,0 +1,49 @@
+#!/bin/bash
+
+# Compares 4 JVMs behind nginx (manage.sh start + nginx_manage.sh) with a single
+# JVM running 4 SO_REUSEPORT listeners (manage.sh start-single 4).
+# Reports resident memory and echo throughput (EchoLoadApp) for each.
+# Run from the scripts/ directory after 'mvn package'.
+
+CLASSES="../target/classes"
+DEPS="../target/classpath.txt"
+CONNECTIONS="${1:-200}"
+SECONDS_PER_RUN="${2:-30}"
+LISTENERS=4
+
+# EchoLoadApp needs the codecs from target/classes and jackson-core for JSON
+if [ ! -f "$DEPS" ]; then
+    (cd .. && ./mvnw -q dependency:build-classpath -Dmdep.outputFile=target/classpath.txt)
+fi
+
+load() {
+    java -cp "$CLASSES:$(cat "$DEPS")" com.github.ankurpathak.websocketsdemo.EchoLoadApp "$1" "$CONNECTIONS" "$SECONDS_PER_RUN" 2>&1 | grep "echoes/s"
+}
+
+nginx_rss() {
+    TOTAL=0
+    for PID in $(pgrep nginx); do
+        TOTAL=$((TOTAL + $(ps -o rss= -p "$PID" | tr -d ' ')))
+    done
+    echo "nginx RSS: $((TOTAL / 1024)) MB"
+}
+
+echo "=== 4 processes + nginx ==="
+./manage.sh start > /dev/null
+./nginx_manage.sh start > /dev/null
+sleep 5
+./manage.sh memory
+nginx_rss
+load "wss://localhost:7443/ws"
+./manage.sh memory | tail -1
+./nginx_manage.sh stop > /dev/null
+./manage.sh stop > /dev/null
+sleep 2
+
+echo "=== 1 process, $LISTENERS SO_REUSEPORT listeners ==="
+./manage.sh start-single "$LISTENERS" > /dev/null
+sleep 5
+./manage.sh memory
+load "wss://localhost:8443/ws"
+./manage.sh memory | tail -1
+./manage.sh stop > /dev/null
@@ -53,6 +53,53 @@ start() {
     echo "Test with: curl -k https://localhost:${PORTS[0]}"
 }
 
+start_single() {
+    # One JVM on the first port with N SO_REUSEPORT listeners instead of one JVM per port
+    LISTENERS="${1:-${#PORTS[@]}}"
+    PORT="${PORTS[0]}"
+
+    if [ ! -f "$JAR_FILE" ]; then
+        echo "❌ Error: Jar file not found at $JAR_FILE"
+        echo "Run 'mvn package' in the project root first."
+        exit 1
+    fi
+
+    echo "🚀 Starting 1 Instance with $LISTENERS SO_REUSEPORT listeners..."
+    > "$PID_FILE" # Clear old PIDs
+
+    LOG_FILE="$WORKSPACE/server_$PORT.log"
+    java -DSERVER_PORT=$PORT -DJETTY_REUSE_PORT_CONNECTORS=$LISTENERS -jar "$JAR_FILE" > "$LOG_FILE" 2>&1 &
+
+    PID=$!
+    echo $PID >> "$PID_FILE"
+    echo "[+] Port $PORT: Started with PID $PID (Log: instances/server_$PORT.log)"
+
+    printf "Checking Port $PORT..."
+    until nc -z localhost "$PORT" > /dev/null 2>&1; do
+        printf "."
+        sleep 1
+    done
+    echo " OPEN ✅"
+    echo "Sessions per listener: curl -k https://localhost:$PORT/sessions"
+}
+
+memory() {
+    if [ ! -f "$PID_FILE" ]; then
+        echo "No instances running according to $PID_FILE"
+        return
+    fi
+
+    TOTAL=0
+    while read -r PID; do
+        if ps -p "$PID" > /dev/null; then
+            RSS=$(ps -o rss= -p "$PID" | tr -d ' ')
+            TOTAL=$((TOTAL + RSS))
+            echo "PID $PID RSS $((RSS / 1024)) MB"
+        fi
+    done < "$PID_FILE"
+    echo "Total RSS: $((TOTAL / 1024)) MB"
+}
+
 stop() {
     if [ ! -f "$PID_FILE" ]; then
         echo "⚠️ No $PID_FILE found. Using pkill as backup..."
@@ -91,8 +138,10 @@ status() {
 
 case "$1" in
     start)   start ;;
+    start-single) start_single "$2" ;;
     stop)    stop ;;
     restart) stop; sleep 2; start ;;
     status)  status ;;
-    *)       echo "Usage: $0 {start|stop|restart|status}" ;;
+    memory)  memory ;;
+    *)       echo "Usage: $0 {start|start-single [listeners]|stop|restart|status|memory}" ;;
 esac
@@ -0,0 +1,192 @@
+package com.github.ankurpathak.websocketsdemo;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compact binary form of {@link EchoMessage}: a CBOR (RFC 8949) array of
+ * {@code [message, remoteAddr, localAddr]}, each a text string or null. Sent as
+ * binary frames. Trailing elements may be left out by clients.
+ */
+public final class CborMessageCodec implements MessageCodec {
+
+    public static final CborMessageCodec INSTANCE = new CborMessageCodec();
+
+    private static final int MAJOR_ARRAY = 4;
+    private static final int MAJOR_TEXT = 3;
+    private static final int NULL = 0xF6;
+    private static final int FIELDS = 3;
+
+    private CborMessageCodec() {
+    }
+
+    @Override
+    public String name() {
+        return "cbor";
+    }
+
+    @Override
+    public boolean binary() {
+        return true;
+    }
+
+    @Override
+    public int maxEncodedLength(EchoMessage message) {
+        return 1
+                + maxLength(message.message())
+                + maxLength(message.remoteAddr())
+                + maxLength(message.localAddr());
+    }
+
+    @Override
+    public void encode(EchoMessage message, ByteBuffer out) {
+        putHeader(out, MAJOR_ARRAY, FIELDS);
+        putString(out, message.message());
+        putString(out, message.remoteAddr());
+        putString(out, message.localAddr());
+    }
+
+    @Override
+    public EchoMessage decode(ByteBuffer in) {
+        int initial = readByte(in);
+        if (initial >>> 5 != MAJOR_ARRAY) {
+            throw new IllegalArgumentException("Malformed CBOR message: expected array");
+        }
+        long count = readLength(in, initial);
+        String[] fields = new String[FIELDS];
+        for (long i = 0; i < count; i++) {
+            String value = readNullableString(in);
+            if (i < FIELDS) {
+                fields[(int) i] = value;
+            }
+        }
+        return new EchoMessage(fields[0], fields[1], fields[2]);
+    }
+
+    private static int maxLength(String value) {
+        // five byte header plus at most three UTF-8 bytes per char
+        return value == null ? 1 : 5 + 3 * value.length();
+    }
+
+    private static void putHeader(ByteBuffer out, int major, int length) {
+        int type = major << 5;
+        if (length < 24) {
+            out.put((byte) (type | length));
+        } else if (length < 0x100) {
+            out.put((byte) (type | 24)).put((byte) length);
+        } else if (length < 0x10000) {
+            out.put((byte) (type | 25)).putShort((short) length);
+        } else {
+            out.put((byte) (type | 26)).putInt(length);
+        }
+    }
+
+    private static void putString(ByteBuffer out, String value) {
+        if (value == null) {
+            out.put((byte) NULL);
+            return;
+        }
+        putHeader(out, MAJOR_TEXT, utf8Length(value));
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                out.put((byte) c);
+            } else if (c < 0x800) {
+                out.put((byte) (0xC0 | (c >> 6)))
+                        .put((byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isSurrogate(c)) {
+                if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                    out.put((byte) (0xF0 | (codePoint >> 18)))
+                            .put((byte) (0x80 | ((codePoint >> 12) & 0x3F)))
+                            .put((byte) (0x80 | ((codePoint >> 6) & 0x3F)))
+                            .put((byte) (0x80 | (codePoint & 0x3F)));
+                } else {
+                    // lone surrogate, replaced the same way String.getBytes does
+                    out.put((byte) '?');
+                }
+            } else {
+                out.put((byte) (0xE0 | (c >> 12)))
+                        .put((byte) (0x80 | ((c >> 6) & 0x3F)))
+                        .put((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+    }
+
+    private static int utf8Length(String value) {
+        int length = value.length();
+        int bytes = 0;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                bytes += 1;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                bytes += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                bytes += 1;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+
+    private static String readNullableString(ByteBuffer in) {
+        int initial = readByte(in);
+        if (initial == NULL) {
+            return null;
+        }
+        if (initial >>> 5 != MAJOR_TEXT) {
+            throw new IllegalArgumentException("Malformed CBOR message: expected text string or null");
+        }
+        long length = readLength(in, initial);
+        if (length > in.remaining()) {
+            throw new IllegalArgumentException("Malformed CBOR message: truncated text string");
+        }
+        int size = (int) length;
+        String value;
+        if (in.hasArray()) {
+            value = new String(in.array(), in.arrayOffset() + in.position(), size, StandardCharsets.UTF_8);
+            in.position(in.position() + size);
+        } else {
+            byte[] bytes = new byte[size];
+            in.get(bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return value;
+    }
+
+    private static long readLength(ByteBuffer in, int initial) {
+        int info = initial & 0x1F;
+        if (info < 24) {
+            return info;
+        }
+        return switch (info) {
+            case 24 -> readByte(in);
+            case 25 -> {
+                require(in, 2);
+                yield Short.toUnsignedInt(in.getShort());
+            }
+            case 26 -> {
+                require(in, 4);
+                yield Integer.toUnsignedLong(in.getInt());
+            }
+            default -> throw new IllegalArgumentException("Malformed CBOR message: unsupported length encoding " + info);
+        };
+    }
+
+    private static int readByte(ByteBuffer in) {
+        require(in, 1);
+        return in.get() & 0xFF;
+    }
+
+    private static void require(ByteBuffer in, int bytes) {
+        if (in.remaining() < bytes) {
+            throw new IllegalArgumentException("Malformed CBOR message: unexpected end of input");
+        }
+    }
+}
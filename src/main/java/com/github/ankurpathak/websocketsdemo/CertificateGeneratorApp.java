@@ -10,7 +10,6 @@ import java.nio.file.Paths;
 import java.security.KeyStore;
 import java.security.PrivateKey;
 import java.security.cert.X509Certificate;
-import java.util.Enumeration;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -19,20 +18,36 @@ public class CertificateGeneratorApp {
     private static final Logger logger =
             Logger.getLogger(CertificateGeneratorApp.class.getName());
 
+    /**
+     * Argument: {@code rsa} (default), {@code ec}, {@code ed25519} or {@code dual}.
+     * {@code dual} writes an RSA cert.crt/cert.key plus an ECDSA cert-ec.crt/cert-ec.key,
+     * the layout {@link PemKeyStoreBuilder#fromHomeCerts(String, String, String)} reads.
+     */
     public static void main(String[] args) {
 
+        String mode = args.length > 0 ? args[0] : "rsa";
+
         try {
-            logger.info("Starting certificate generation...");
+            logger.info("Starting certificate generation (" + mode + ")...");
 
             // 🔹 Build keystore
-            KeyStore keyStore = new SelfSignedKeyStoreBuilder()
-                    .alias("key")
+            SelfSignedKeyStoreBuilder builder = new SelfSignedKeyStoreBuilder()
+                    .alias(SslBundleConfig.ALIAS)
                     .commonName("demo.local")
                     .addDnsName("demo.local")
                     .addDnsName("localhost")
                     .addIpAddress("127.0.0.1")
-                    .validityDays(365)
-                    .build();
+                    .validityDays(365);
+
+            switch (mode) {
+                case "rsa" -> builder.keyAlgorithm(SelfSignedKeyStoreBuilder.KeyAlgorithm.RSA);
+                case "ec" -> builder.keyAlgorithm(SelfSignedKeyStoreBuilder.KeyAlgorithm.EC_P256);
+                case "ed25519" -> builder.keyAlgorithm(SelfSignedKeyStoreBuilder.KeyAlgorithm.ED25519);
+                case "dual" -> builder.addKey(SslBundleConfig.EC_ALIAS, SelfSignedKeyStoreBuilder.KeyAlgorithm.EC_P256);
+                default -> throw new IllegalArgumentException("Unknown mode: " + mode);
+            }
+
+            KeyStore keyStore = builder.build();
 
             char[] password = "changeit".toCharArray();
 
@@ -50,30 +65,10 @@ public class CertificateGeneratorApp {
             logger.info("Generated keystore.p12");
 
             // 🔹 Extract private key & certificate
-            Enumeration<String> aliases = keyStore.aliases();
-            String alias = aliases.nextElement();
-
-            PrivateKey privateKey =
-                    (PrivateKey) keyStore.getKey(alias, password);
-
-            X509Certificate certificate =
-                    (X509Certificate) keyStore.getCertificate(alias);
-
-            // 🔹 Write cert.cert
-            try (JcaPEMWriter writer =
-                         new JcaPEMWriter(
-                                 Files.newBufferedWriter(outputDir.resolve("cert.crt")))) {
-                writer.writeObject(certificate);
+            writePem(keyStore, SslBundleConfig.ALIAS, password, outputDir, "cert");
+            if (keyStore.containsAlias(SslBundleConfig.EC_ALIAS)) {
+                writePem(keyStore, SslBundleConfig.EC_ALIAS, password, outputDir, "cert-ec");
             }
-            logger.info("Generated cert.crt");
-
-            // 🔹 Write cert.key
-            try (JcaPEMWriter writer =
-                         new JcaPEMWriter(
-                                 Files.newBufferedWriter(outputDir.resolve("cert.key")))) {
-                writer.writeObject(privateKey);
-            }
-            logger.info("Generated cert.key");
 
             logger.info("Certificate generation completed successfully.");
 
@@ -81,4 +76,36 @@ public class CertificateGeneratorApp {
             logger.log(Level.SEVERE, "Certificate generation failed", e);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Writes the entry under {@code alias} as {@code <baseName>.crt} and {@code <baseName>.key}.
+     */
+    static void writePem(KeyStore keyStore,
+                         String alias,
+                         char[] password,
+                         Path outputDir,
+                         String baseName) throws Exception {
+
+        PrivateKey privateKey =
+                (PrivateKey) keyStore.getKey(alias, password);
+
+        X509Certificate certificate =
+                (X509Certificate) keyStore.getCertificate(alias);
+
+        // 🔹 Write <baseName>.crt
+        try (JcaPEMWriter writer =
+                     new JcaPEMWriter(
+                             Files.newBufferedWriter(outputDir.resolve(baseName + ".crt")))) {
+            writer.writeObject(certificate);
+        }
+        logger.info("Generated " + baseName + ".crt");
+
+        // 🔹 Write <baseName>.key
+        try (JcaPEMWriter writer =
+                     new JcaPEMWriter(
+                             Files.newBufferedWriter(outputDir.resolve(baseName + ".key")))) {
+            writer.writeObject(privateKey);
+        }
+        logger.info("Generated " + baseName + ".key");
+    }
+}
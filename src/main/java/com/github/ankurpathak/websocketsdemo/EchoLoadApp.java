@@ -0,0 +1,104 @@
+package com.github.ankurpathak.websocketsdemo;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * Echo throughput against a running server or proxy: every connection keeps one
+ * message in flight and sends the next as soon as the echo arrives.
+ *
+ * <p>Arguments: {@code [uri] [connections] [seconds] [json|cbor]}, defaults
+ * {@code wss://localhost:8443/ws 200 30 json}. The codec must match the server's
+ * {@code websocket.codec}, which refuses frames of the other type.
+ */
+public class EchoLoadApp {
+
+    private static final Logger logger =
+            Logger.getLogger(EchoLoadApp.class.getName());
+
+    public static void main(String[] args) throws Exception {
+
+        URI uri = URI.create(args.length > 0 ? args[0] : "wss://localhost:8443/ws");
+        int connections = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+        MessageCodec codec = args.length > 3 && args[3].equals("cbor")
+                ? CborMessageCodec.INSTANCE
+                : JsonMessageCodec.INSTANCE;
+
+        EchoMessage message = EchoMessage.of("{\"symbol\":\"ACME\",\"bid\":101.25,\"ask\":101.27}");
+        ByteBuffer payload = ByteBuffer.allocate(codec.maxEncodedLength(message));
+        codec.encode(message, payload);
+        payload.flip();
+        String text = codec.binary() ? null : codec.encodeText(message);
+
+        // The demo certificate is self signed
+        System.setProperty("jdk.internal.httpclient.disableHostnameVerification", "true");
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .sslContext(TrustAllManager.sslContext("TLS"))
+                .build();
+
+        LongAdder echoes = new LongAdder();
+        List<WebSocket> sockets = new ArrayList<>();
+
+        for (int i = 0; i < connections; i++) {
+            WebSocket.Listener listener = new WebSocket.Listener() {
+                @Override
+                public void onOpen(WebSocket webSocket) {
+                    webSocket.request(1);
+                    send(webSocket);
+                }
+
+                @Override
+                public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+                    return onFrame(webSocket, last);
+                }
+
+                @Override
+                public CompletionStage<?> onBinary(WebSocket webSocket, ByteBuffer data, boolean last) {
+                    return onFrame(webSocket, last);
+                }
+
+                private CompletionStage<?> onFrame(WebSocket webSocket, boolean last) {
+                    webSocket.request(1);
+                    if (last) {
+                        echoes.increment();
+                        send(webSocket);
+                    }
+                    return null;
+                }
+
+                private void send(WebSocket webSocket) {
+                    if (codec.binary()) {
+                        webSocket.sendBinary(payload.duplicate(), true);
+                    } else {
+                        webSocket.sendText(text, true);
+                    }
+                }
+            };
+            sockets.add(client.newWebSocketBuilder().buildAsync(uri, listener).get(30, TimeUnit.SECONDS));
+        }
+
+        logger.info(connections + " connections open to " + uri + ", running " + seconds + " s (" + codec.name() + ")");
+
+        // first fifth of the run is warm up
+        Thread.sleep(TimeUnit.SECONDS.toMillis(seconds) / 5);
+        long start = System.nanoTime();
+        long before = echoes.sum();
+        Thread.sleep(TimeUnit.SECONDS.toMillis(seconds) * 4 / 5);
+        long count = echoes.sum() - before;
+        double elapsed = (System.nanoTime() - start) / 1e9;
+
+        sockets.forEach(WebSocket::abort);
+
+        logger.info(String.format("%.0f echoes/s over %d connections", count / elapsed, connections));
+    }
+}
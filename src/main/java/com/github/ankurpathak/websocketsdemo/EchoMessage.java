@@ -0,0 +1,16 @@
+package com.github.ankurpathak.websocketsdemo;
+
+/**
+ * Payload exchanged on /ws. Inbound frames normally only carry {@code message};
+ * replies fill in the addresses of the connection they were echoed on.
+ */
+public record EchoMessage(String message, String remoteAddr, String localAddr) {
+
+    public static EchoMessage of(String message) {
+        return new EchoMessage(message, null, null);
+    }
+
+    public EchoMessage reply(String remoteAddr, String localAddr) {
+        return new EchoMessage(message, remoteAddr, localAddr);
+    }
+}
@@ -0,0 +1,71 @@
+package com.github.ankurpathak.websocketsdemo;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * Measures HTTP/1.1 WebSocket upgrade handshakes per second against a running
+ * server. Compare {@code websocket.native-upgrade.enabled=true} (Jetty handles /ws)
+ * with {@code false} (Spring filter chain and ServerEndpointExporter), both with
+ * {@code server.http2.enabled=false}. Over {@code wss} the TLS handshake costs far
+ * more than either upgrade path, so also compare over {@code ws} with
+ * {@code server.ssl.enabled=false}.
+ *
+ * <p>Arguments: {@code [uri] [handshakes] [concurrency]}, defaults
+ * {@code wss://localhost:8443/ws 20000 64}.
+ */
+public class HandshakeBenchmarkApp {
+
+    private static final Logger logger =
+            Logger.getLogger(HandshakeBenchmarkApp.class.getName());
+
+    public static void main(String[] args) throws Exception {
+
+        URI uri = URI.create(args.length > 0 ? args[0] : "wss://localhost:8443/ws");
+        int handshakes = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+        int concurrency = args.length > 2 ? Integer.parseInt(args[2]) : 64;
+
+        // The demo certificate is self signed
+        System.setProperty("jdk.internal.httpclient.disableHostnameVerification", "true");
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .sslContext(TrustAllManager.sslContext("TLS"))
+                .build();
+
+        logger.info("Warming up against " + uri);
+        run(client, uri, Math.min(handshakes, 2_000), concurrency);
+
+        long start = System.nanoTime();
+        int failures = run(client, uri, handshakes, concurrency);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        logger.info(String.format("%d handshakes (%d failed) in %.2f s: %.0f handshakes/s at concurrency %d",
+                handshakes, failures, seconds, (handshakes - failures) / seconds, concurrency));
+    }
+
+    private static int run(HttpClient client, URI uri, int handshakes, int concurrency) throws InterruptedException {
+        Semaphore inFlight = new Semaphore(concurrency);
+        AtomicInteger failures = new AtomicInteger();
+
+        for (int i = 0; i < handshakes; i++) {
+            inFlight.acquire();
+            client.newWebSocketBuilder()
+                    .buildAsync(uri, new WebSocket.Listener() {
+                    })
+                    .thenCompose(ws -> ws.sendClose(WebSocket.NORMAL_CLOSURE, "")
+                            .thenRun(ws::abort))
+                    .exceptionally(x -> {
+                        failures.incrementAndGet();
+                        return null;
+                    })
+                    .thenRun(inFlight::release);
+        }
+
+        inFlight.acquire(concurrency);
+        return failures.get();
+    }
+}
@@ -1,23 +1,58 @@
 package com.github.ankurpathak.websocketsdemo;
 
+import jakarta.websocket.CloseReason;
+import jakarta.websocket.DecodeException;
 import jakarta.websocket.OnClose;
+import jakarta.websocket.OnError;
 import jakarta.websocket.OnMessage;
 import jakarta.websocket.OnOpen;
 import jakarta.websocket.Session;
 import jakarta.websocket.server.ServerEndpoint;
+import jakarta.websocket.server.ServerEndpointConfig;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.boot.autoconfigure.condition.ConditionalOnBooleanProperty;
-import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
 
-@Component
-@ConditionalOnBooleanProperty(prefix = "server", name = "http2.enabled", havingValue = false)
+/**
+ * Jakarta /ws endpoint for HTTP/1.1 when the upgrade is left to Spring. The
+ * container creates one instance per session through {@link Configurator}, see
+ * {@link #endpointConfig(SessionDispatcher, MessageCodec)}.
+ *
+ * <p>Messages are read and written through {@link JakartaMessageCodecs} adapters
+ * over the configured codec. The container binds a decoded type to a single frame
+ * type, so only the codec's frame type is accepted. The container would drop the
+ * other type silently, a raw handler closes the session with 1003 instead.
+ */
 @ServerEndpoint("/ws")
 public class Http1WebSocketHandler {
 
     private static final Logger logger = LoggerFactory.getLogger(Http1WebSocketHandler.class);
 
+    private final SessionDispatcher dispatcher;
+    private final MessageCodec codec;
+
+    // Replies are built and sent on this session's shard, in arrival order
+    private SessionDispatcher.Lane lane;
+
+    public Http1WebSocketHandler(SessionDispatcher dispatcher, MessageCodec codec) {
+        this.dispatcher = dispatcher;
+        this.codec = codec;
+    }
+
+    /**
+     * Registration of this endpoint, picked up by {@link org.springframework.web.socket.server.standard.ServerEndpointExporter}.
+     */
+    public static ServerEndpointConfig endpointConfig(SessionDispatcher dispatcher, MessageCodec codec) {
+        ServerEndpointConfig config = ServerEndpointConfig.Builder.create(Http1WebSocketHandler.class, "/ws")
+                .encoders(JakartaMessageCodecs.encoders(codec))
+                .decoders(JakartaMessageCodecs.decoders(codec))
+                .configurator(new Configurator(dispatcher, codec))
+                .build();
+        JakartaMessageCodecs.configure(config, codec);
+        return config;
+    }
 
     @OnOpen
     public void onOpen(Session session) {
@@ -31,34 +66,105 @@ public class Http1WebSocketHandler {
             logger.info("Remote Addr: {}", remoteAddr);
             logger.info("Local Addr: {}", localAddr);
 
+            lane = dispatcher.register(session.getId(), String.valueOf(remoteAddr));
         } else {
             logger.warn("UserProperties not available");
+            lane = dispatcher.register(session.getId(), session.getId());
+        }
+
+        if (codec.binary()) {
+            session.addMessageHandler(String.class, _ -> refuse(session, "Text"));
+        } else {
+            session.addMessageHandler(ByteBuffer.class, _ -> refuse(session, "Binary"));
         }
     }
 
     @OnMessage
-    public void onMessage(String message, Session session) throws Exception {
-        logger.info("Received message: {}", message);
+    public void onMessage(EchoMessage message, Session session) {
+        logger.info("Received message: {}", message.message());
 
-        final var userProperties = session.getUserProperties();
+        // Async so a client that stops reading cannot hold up the rest of the shard.
+        // Such a client cannot be paused here either, so past the cap it is closed.
+        boolean queued = lane.execute(written -> session.getAsyncRemote().sendObject(reply(message, session), result -> {
+            written.run();
+            if (!result.isOK()) {
+                logger.warn("Reply failed: {}", session.getId(), result.getException());
+            }
+        }));
+        if (!queued) {
+            close(session, CloseReason.CloseCodes.VIOLATED_POLICY, "Too many unsent replies");
+        }
+    }
+
+    /**
+     * A payload the decoder cannot read is the client's fault, closed with 1007
+     * rather than left to the container's 1003 and stack trace.
+     */
+    @OnError
+    public void onError(Session session, Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof DecodeException) {
+                logger.debug("Malformed message from {}: {}", session.getId(), cause.getMessage());
+                close(session, CloseReason.CloseCodes.NOT_CONSISTENT, "Malformed " + codec.name() + " message");
+                return;
+            }
+        }
+        logger.warn("WebSocket error: {}: {}", session.getId(), error.toString());
+    }
+
+    private void refuse(Session session, String frameType) {
+        close(session, CloseReason.CloseCodes.CANNOT_ACCEPT, frameType + " frames not accepted, codec is " + codec.name());
+    }
+
+    private void close(Session session, CloseReason.CloseCode code, String reason) {
+        try {
+            session.close(new CloseReason(code, reason));
+        } catch (IOException e) {
+            logger.warn("Close failed: {}", session.getId(), e);
+        }
+    }
 
-        StringBuilder response = new StringBuilder();
-        response.append("Echo: ").append(message).append(" | ");
+    private EchoMessage reply(EchoMessage message, Session session) {
+        final var userProperties = session.getUserProperties();
 
         if (userProperties != null) {
             final var remoteAddr = userProperties.get("jakarta.websocket.endpoint.remoteAddress");
             final var localAddr = userProperties.get("jakarta.websocket.endpoint.localAddress");
-            response.append("Remote Addr: ").append(remoteAddr)
-                    .append(" | Local Addr: ").append(localAddr);
-        } else {
-            logger.warn("UserProperties not available");
+            return message.reply(String.valueOf(remoteAddr), String.valueOf(localAddr));
         }
 
-        session.getBasicRemote().sendText(response.toString());
+        logger.warn("UserProperties not available");
+        return message.reply(null, null);
     }
 
     @OnClose
     public void onClose(Session session) {
+        if (lane != null) {
+            dispatcher.unregister(lane);
+        }
         logger.info("WebSocket disconnected: {}", session.getId());
     }
-}
\ No newline at end of file
+
+    /**
+     * Builds each session's endpoint around the shared dispatcher and codec, so
+     * nothing has to be handed over through static state.
+     */
+    public static class Configurator extends ServerEndpointConfig.Configurator {
+
+        private final SessionDispatcher dispatcher;
+        private final MessageCodec codec;
+
+        public Configurator(SessionDispatcher dispatcher, MessageCodec codec) {
+            this.dispatcher = dispatcher;
+            this.codec = codec;
+        }
+
+        @Override
+        public <T> T getEndpointInstance(Class<T> endpointClass) throws InstantiationException {
+            if (endpointClass != Http1WebSocketHandler.class) {
+                return super.getEndpointInstance(endpointClass);
+            }
+            return endpointClass.cast(new Http1WebSocketHandler(dispatcher, codec));
+        }
+    }
+}
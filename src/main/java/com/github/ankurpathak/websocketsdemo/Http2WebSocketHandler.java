@@ -1,6 +1,10 @@
 package com.github.ankurpathak.websocketsdemo;
 
+import org.eclipse.jetty.io.ByteBufferPool;
+import org.eclipse.jetty.io.RetainableByteBuffer;
+import org.eclipse.jetty.util.BufferUtil;
 import org.eclipse.jetty.websocket.api.Callback;
+import org.eclipse.jetty.websocket.api.StatusCode;
 import org.eclipse.jetty.websocket.api.annotations.OnWebSocketClose;
 import org.eclipse.jetty.websocket.api.annotations.OnWebSocketMessage;
 import org.eclipse.jetty.websocket.api.annotations.OnWebSocketOpen;
@@ -9,42 +13,147 @@ import org.eclipse.jetty.websocket.api.Session;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.ByteBuffer;
 import java.time.Duration;
+import java.util.function.Consumer;
 
-@WebSocket
+/**
+ * Native /ws endpoint. Frames are read on demand: the session's lane asks for the
+ * next one while it has room, so a client that stops reading replies stops being
+ * read once {@link SessionDispatcher} holds its cap of unsent replies.
+ */
+@WebSocket(autoDemand = false)
 public class Http2WebSocketHandler {
 
     private static final Logger logger = LoggerFactory.getLogger(Http2WebSocketHandler.class);
 
+    private final ByteBufferPool bufferPool;
+    private final WebSocketSessionRegistry sessionRegistry;
+    private final SessionDispatcher dispatcher;
+    private final String connectorName;
+    // Frames of the other type than the codec's are refused
+    private final MessageCodec codec;
+
+    private Session session;
+    // Replies are built and sent on this session's shard, in arrival order
+    private SessionDispatcher.Lane lane;
+
+    public Http2WebSocketHandler(ByteBufferPool bufferPool,
+                                 WebSocketSessionRegistry sessionRegistry,
+                                 SessionDispatcher dispatcher,
+                                 String connectorName,
+                                 MessageCodec codec) {
+        this.bufferPool = bufferPool;
+        this.sessionRegistry = sessionRegistry;
+        this.dispatcher = dispatcher;
+        this.connectorName = connectorName;
+        this.codec = codec;
+    }
+
     @OnWebSocketOpen
     public void onOpen(Session session) {
+        this.session = session;
+        sessionRegistry.register(session, connectorName);
         session.setIdleTimeout(Duration.ZERO);
         logger.info("WebSocket connected: {}", session.getRemoteSocketAddress());
 
         String remoteAddr = session.getRemoteSocketAddress() != null ? session.getRemoteSocketAddress().toString() : "Unknown";
         String localAddr = session.getLocalSocketAddress() != null ? session.getLocalSocketAddress().toString() : "Unknown";
 
+        this.lane = dispatcher.register(session, remoteAddr, session::demand);
+
         logger.info("Remote Addr: {}", remoteAddr);
         logger.info("Local Addr: {}", localAddr);
+
+        session.demand();
     }
 
     @OnWebSocketMessage
     public void onMessage(String message, Session session) {
-        logger.info("Received message: {}", message);
+        if (codec.binary()) {
+            session.close(StatusCode.BAD_DATA, "Text frames not accepted, codec is " + codec.name(), Callback.NOOP);
+            return;
+        }
+        EchoMessage decoded;
+        try {
+            decoded = codec.decodeText(message);
+        } catch (IllegalArgumentException e) {
+            refuseMalformed(e);
+            return;
+        }
+        logger.info("Received message: {}", decoded.message());
 
+        dispatch(written -> session.sendText(codec.encodeText(reply(decoded, session)),
+                Callback.from(written, _ -> written.run())));
+    }
+
+    @OnWebSocketMessage
+    public void onBinaryMessage(ByteBuffer payload, Callback callback) {
+        if (!codec.binary()) {
+            callback.succeed();
+            session.close(StatusCode.BAD_DATA, "Binary frames not accepted, codec is " + codec.name(), Callback.NOOP);
+            return;
+        }
+        EchoMessage decoded;
+        try {
+            decoded = codec.decode(payload);
+        } catch (IllegalArgumentException e) {
+            refuseMalformed(e);
+            return;
+        } finally {
+            callback.succeed();
+        }
+        logger.info("Received binary message: {}", decoded.message());
+
+        dispatch(written -> sendBinary(decoded, written));
+    }
+
+    private void dispatch(Consumer<Runnable> task) {
+        // The lane withholds demand at its cap, so only a misbehaving peer gets here
+        if (!lane.execute(task)) {
+            session.close(StatusCode.POLICY_VIOLATION, "Too many unsent replies", Callback.NOOP);
+        }
+    }
+
+    /**
+     * A payload the codec cannot read is the client's fault, closed with 1007
+     * rather than left to Jetty's 1011 and stack trace.
+     */
+    private void refuseMalformed(IllegalArgumentException e) {
+        logger.debug("Malformed message from {}: {}", session.getRemoteSocketAddress(), e.getMessage());
+        session.close(StatusCode.BAD_PAYLOAD, "Malformed " + codec.name() + " message", Callback.NOOP);
+    }
+
+    private void sendBinary(EchoMessage decoded, Runnable written) {
+        EchoMessage reply = reply(decoded, session);
+
+        // Encode straight into a pooled buffer, handed back once the frame is written.
+        RetainableByteBuffer buffer = bufferPool.acquire(codec.maxEncodedLength(reply), false);
+        ByteBuffer byteBuffer = buffer.getByteBuffer();
+        BufferUtil.clearToFill(byteBuffer);
+        codec.encode(reply, byteBuffer);
+        BufferUtil.flipToFlush(byteBuffer, 0);
+
+        Runnable done = () -> {
+            buffer.release();
+            written.run();
+        };
+        session.sendBinary(byteBuffer, Callback.from(done, _ -> done.run()));
+    }
+
+    private EchoMessage reply(EchoMessage message, Session session) {
         String remoteAddr = session.getRemoteSocketAddress() != null ? session.getRemoteSocketAddress().toString() : "Unknown";
         String localAddr = session.getLocalSocketAddress() != null ? session.getLocalSocketAddress().toString() : "Unknown";
 
-        StringBuilder response = new StringBuilder();
-        response.append("Echo: ").append(message).append(" | ")
-                .append("Remote Addr: ").append(remoteAddr)
-                .append(" | Local Addr: ").append(localAddr);
-
-        session.sendText(response.toString(), Callback.NOOP);
+        return message.reply(remoteAddr, localAddr);
     }
 
     @OnWebSocketClose
     public void onClose(Session session) {
+        sessionRegistry.unregister(session);
+        if (lane != null) {
+            dispatcher.unregister(lane);
+        }
         logger.info("WebSocket disconnected: {}", session.getRemoteSocketAddress());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,122 @@
+package com.github.ankurpathak.websocketsdemo;
+
+import jakarta.websocket.DecodeException;
+import jakarta.websocket.Decoder;
+import jakarta.websocket.Encoder;
+import jakarta.websocket.EndpointConfig;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Jakarta {@link Encoder}/{@link Decoder} adapters over a {@link MessageCodec},
+ * see {@link Http1WebSocketHandler}. The container creates them without
+ * arguments, so they find the codec in the endpoint config's user properties.
+ */
+public final class JakartaMessageCodecs {
+
+    private static final String CODEC = MessageCodec.class.getName();
+
+    private JakartaMessageCodecs() {
+    }
+
+    static void configure(EndpointConfig config, MessageCodec codec) {
+        config.getUserProperties().put(CODEC, codec);
+    }
+
+    static List<Class<? extends Encoder>> encoders(MessageCodec codec) {
+        return List.of(codec.binary() ? BinaryEncoder.class : TextEncoder.class);
+    }
+
+    static List<Class<? extends Decoder>> decoders(MessageCodec codec) {
+        return List.of(codec.binary() ? BinaryDecoder.class : TextDecoder.class);
+    }
+
+    private static MessageCodec codec(EndpointConfig config) {
+        MessageCodec codec = (MessageCodec) config.getUserProperties().get(CODEC);
+        if (codec == null) {
+            throw new IllegalStateException("No " + CODEC + " in the endpoint config");
+        }
+        return codec;
+    }
+
+    public static class TextEncoder implements Encoder.Text<EchoMessage> {
+
+        private MessageCodec codec;
+
+        @Override
+        public void init(EndpointConfig config) {
+            codec = codec(config);
+        }
+
+        @Override
+        public String encode(EchoMessage message) {
+            return codec.encodeText(message);
+        }
+    }
+
+    public static class TextDecoder implements Decoder.Text<EchoMessage> {
+
+        private MessageCodec codec;
+
+        @Override
+        public void init(EndpointConfig config) {
+            codec = codec(config);
+        }
+
+        @Override
+        public EchoMessage decode(String text) throws DecodeException {
+            try {
+                return codec.decodeText(text);
+            } catch (IllegalArgumentException e) {
+                throw new DecodeException(text, e.getMessage(), e);
+            }
+        }
+
+        @Override
+        public boolean willDecode(String text) {
+            return text != null;
+        }
+    }
+
+    public static class BinaryEncoder implements Encoder.Binary<EchoMessage> {
+
+        private MessageCodec codec;
+
+        @Override
+        public void init(EndpointConfig config) {
+            codec = codec(config);
+        }
+
+        @Override
+        public ByteBuffer encode(EchoMessage message) {
+            ByteBuffer out = ByteBuffer.allocate(codec.maxEncodedLength(message));
+            codec.encode(message, out);
+            return out.flip();
+        }
+    }
+
+    public static class BinaryDecoder implements Decoder.Binary<EchoMessage> {
+
+        private MessageCodec codec;
+
+        @Override
+        public void init(EndpointConfig config) {
+            codec = codec(config);
+        }
+
+        @Override
+        public EchoMessage decode(ByteBuffer bytes) throws DecodeException {
+            try {
+                return codec.decode(bytes);
+            } catch (IllegalArgumentException e) {
+                throw new DecodeException(bytes, e.getMessage(), e);
+            }
+        }
+
+        @Override
+        public boolean willDecode(ByteBuffer bytes) {
+            return bytes != null;
+        }
+    }
+}
@@ -70,9 +70,13 @@ public class JettyDemo {
         // --------------------
         // WebSocket handler
         // --------------------
+        WebSocketSessionRegistry sessionRegistry = new WebSocketSessionRegistry();
+        SessionDispatcher dispatcher = new SessionDispatcher(Runtime.getRuntime().availableProcessors());
         WebSocketUpgradeHandler wsHandler =
                 WebSocketUpgradeHandler.from(server, container -> {
-                    container.addMapping("/ws", (req, res, up) -> new Http2WebSocketHandler());
+                    container.addMapping("/ws", (req, res, up) -> new Http2WebSocketHandler(server.getByteBufferPool(),
+                            sessionRegistry, dispatcher, req.getConnectionMetaData().getConnector().getName(),
+                            JsonMessageCodec.INSTANCE));
 
                 });
 
@@ -0,0 +1,183 @@
+package com.github.ankurpathak.websocketsdemo;
+
+import tools.jackson.core.JacksonException;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.core.JsonParser;
+import tools.jackson.core.JsonToken;
+import tools.jackson.core.ObjectReadContext;
+import tools.jackson.core.ObjectWriteContext;
+import tools.jackson.core.json.JsonFactory;
+
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * JSON form of {@link EchoMessage}: {@code {"message":..,"remoteAddr":..,"localAddr":..}}.
+ * Sent as text frames, read and written with jackson-core's streaming API.
+ *
+ * <p>Any frame that is not exactly such an object (plain text, other JSON, a
+ * truncated or malformed document) is taken as the message itself, so plain
+ * text clients keep working. Their replies are JSON too, where they used to be
+ * {@code Echo: .. | Remote Addr: .. | Local Addr: ..}.
+ */
+public final class JsonMessageCodec implements MessageCodec {
+
+    public static final JsonMessageCodec INSTANCE = new JsonMessageCodec();
+
+    private static final String MESSAGE = "message";
+    private static final String REMOTE_ADDR = "remoteAddr";
+    private static final String LOCAL_ADDR = "localAddr";
+
+    // {"message":  ,"remoteAddr":  ,"localAddr":  }
+    private static final int OVERHEAD = 39;
+
+    private final JsonFactory factory = new JsonFactory();
+
+    private JsonMessageCodec() {
+    }
+
+    @Override
+    public String name() {
+        return "json";
+    }
+
+    @Override
+    public boolean binary() {
+        return false;
+    }
+
+    @Override
+    public int maxEncodedLength(EchoMessage message) {
+        return OVERHEAD
+                + maxLength(message.message())
+                + maxLength(message.remoteAddr())
+                + maxLength(message.localAddr());
+    }
+
+    @Override
+    public void encode(EchoMessage message, ByteBuffer out) {
+        try (JsonGenerator generator = factory.createGenerator(ObjectWriteContext.empty(), new ByteBufferOutputStream(out))) {
+            write(generator, message);
+        }
+    }
+
+    @Override
+    public EchoMessage decode(ByteBuffer in) {
+        byte[] bytes;
+        int offset;
+        int length = in.remaining();
+        if (in.hasArray()) {
+            bytes = in.array();
+            offset = in.arrayOffset() + in.position();
+        } else {
+            bytes = new byte[length];
+            in.duplicate().get(bytes);
+            offset = 0;
+        }
+        in.position(in.limit());
+
+        EchoMessage message;
+        try (JsonParser parser = factory.createParser(ObjectReadContext.empty(), bytes, offset, length)) {
+            message = read(parser);
+        } catch (JacksonException e) {
+            message = null;
+        }
+        return message != null ? message : EchoMessage.of(new String(bytes, offset, length, StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public String encodeText(EchoMessage message) {
+        StringWriter out = new StringWriter(OVERHEAD + 64);
+        try (JsonGenerator generator = factory.createGenerator(ObjectWriteContext.empty(), out)) {
+            write(generator, message);
+        }
+        return out.toString();
+    }
+
+    @Override
+    public EchoMessage decodeText(String text) {
+        EchoMessage message;
+        try (JsonParser parser = factory.createParser(ObjectReadContext.empty(), text)) {
+            message = read(parser);
+        } catch (JacksonException e) {
+            message = null;
+        }
+        return message != null ? message : EchoMessage.of(text);
+    }
+
+    private static int maxLength(String value) {
+        // every char may become a six byte \\uXXXX escape
+        return value == null ? 4 : 2 + 6 * value.length();
+    }
+
+    private static void write(JsonGenerator generator, EchoMessage message) {
+        generator.writeStartObject();
+        generator.writeStringProperty(MESSAGE, message.message());
+        generator.writeStringProperty(REMOTE_ADDR, message.remoteAddr());
+        generator.writeStringProperty(LOCAL_ADDR, message.localAddr());
+        generator.writeEndObject();
+    }
+
+    /**
+     * Reads one message object, or returns null when the input is anything else:
+     * not an object, an unknown or non string field, no {@code message} field, or
+     * trailing content.
+     */
+    private static EchoMessage read(JsonParser parser) {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            return null;
+        }
+        boolean hasMessage = false;
+        String message = null;
+        String remoteAddr = null;
+        String localAddr = null;
+
+        String name;
+        while ((name = parser.nextName()) != null) {
+            JsonToken value = parser.nextToken();
+            if (value != JsonToken.VALUE_STRING && value != JsonToken.VALUE_NULL) {
+                return null;
+            }
+            String text = value == JsonToken.VALUE_NULL ? null : parser.getString();
+            switch (name) {
+                case MESSAGE -> {
+                    hasMessage = true;
+                    message = text;
+                }
+                case REMOTE_ADDR -> remoteAddr = text;
+                case LOCAL_ADDR -> localAddr = text;
+                default -> {
+                    return null;
+                }
+            }
+        }
+        if (!hasMessage || parser.currentToken() != JsonToken.END_OBJECT || parser.nextToken() != null) {
+            return null;
+        }
+        return new EchoMessage(message, remoteAddr, localAddr);
+    }
+
+    /**
+     * Lets the generator write straight into the caller's buffer.
+     */
+    private static final class ByteBufferOutputStream extends OutputStream {
+
+        private final ByteBuffer out;
+
+        private ByteBufferOutputStream(ByteBuffer out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) {
+            out.put((byte) b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            out.put(b, off, len);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.github.ankurpathak.websocketsdemo;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Wire format for {@link EchoMessage}. Implementations write straight into a
+ * caller supplied buffer so handlers can encode into pooled memory.
+ *
+ * <p>Codecs are picked up as beans and /ws speaks the one named by
+ * {@code websocket.codec}, see {@link MessageCodecs}. Both upgrade paths accept
+ * and send only the frame type {@link #binary()} selects.
+ */
+public interface MessageCodec {
+
+    String name();
+
+    /**
+     * Whether the encoded form goes out as a binary frame rather than a text frame.
+     */
+    boolean binary();
+
+    /**
+     * Upper bound of the bytes {@link #encode} writes for the message.
+     */
+    int maxEncodedLength(EchoMessage message);
+
+    /**
+     * Writes the message at the buffer position, which must be in fill mode.
+     */
+    void encode(EchoMessage message, ByteBuffer out);
+
+    /**
+     * Reads one message from the remaining bytes of the buffer.
+     *
+     * @throws IllegalArgumentException if the bytes are not a message in this format
+     */
+    EchoMessage decode(ByteBuffer in);
+
+    /**
+     * Text frame form of the message, for codecs that are not {@link #binary()}.
+     */
+    default String encodeText(EchoMessage message) {
+        requireText();
+        ByteBuffer out = ByteBuffer.allocate(maxEncodedLength(message));
+        encode(message, out);
+        return StandardCharsets.UTF_8.decode(out.flip()).toString();
+    }
+
+    /**
+     * Reads a text frame, for codecs that are not {@link #binary()}.
+     */
+    default EchoMessage decodeText(String text) {
+        requireText();
+        return decode(StandardCharsets.UTF_8.encode(text));
+    }
+
+    private void requireText() {
+        if (binary()) {
+            throw new UnsupportedOperationException(name() + " is a binary codec");
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.github.ankurpathak.websocketsdemo;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The {@link MessageCodec} beans by name. {@code websocket.codec} picks the one
+ * /ws speaks; registering another codec bean makes it selectable.
+ */
+@Component
+public final class MessageCodecs {
+
+    private final Map<String, MessageCodec> codecs = new TreeMap<>();
+    private final MessageCodec selected;
+
+    public MessageCodecs(List<MessageCodec> codecs, @Value("${websocket.codec:json}") String selected) {
+        for (MessageCodec codec : codecs) {
+            if (this.codecs.putIfAbsent(codec.name(), codec) != null) {
+                throw new IllegalStateException("Two codecs named " + codec.name());
+            }
+        }
+        this.selected = get(selected);
+    }
+
+    public MessageCodec get(String name) {
+        MessageCodec codec = codecs.get(name);
+        if (codec == null) {
+            throw new IllegalArgumentException("Unknown codec '" + name + "', available: " + codecs.keySet());
+        }
+        return codec;
+    }
+
+    /**
+     * The codec named by {@code websocket.codec}.
+     */
+    public MessageCodec selected() {
+        return selected;
+    }
+}
@@ -1,24 +1,21 @@
 package com.github.ankurpathak.websocketsdemo;
+import org.bouncycastle.asn1.ASN1ObjectIdentifier;
 import org.bouncycastle.asn1.pkcs.PrivateKeyInfo;
-import org.bouncycastle.cert.X509CertificateHolder;
-import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
-import org.bouncycastle.jce.provider.BouncyCastleProvider;
 import org.bouncycastle.openssl.PEMKeyPair;
 import org.bouncycastle.openssl.PEMParser;
-import org.bouncycastle.openssl.jcajce.JcaPEMKeyConverter;
 
 import java.io.FileReader;
+import java.io.InputStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.security.*;
 import java.security.cert.Certificate;
+import java.security.cert.CertificateFactory;
 import java.security.cert.X509Certificate;
+import java.security.spec.PKCS8EncodedKeySpec;
 public final class PemKeyStoreBuilder {
 
-    static {
-        Security.addProvider(new BouncyCastleProvider());
-    }
-
     private PemKeyStoreBuilder() {
         // prevent instantiation
     }
@@ -37,6 +34,41 @@ public final class PemKeyStoreBuilder {
         return build(certPath, keyPath, alias, password);
     }
 
+    /**
+     * Like {@link #fromHomeCerts(String, String)}, additionally loading
+     * ~/certs/cert-ec.crt + cert-ec.key under {@code ecAlias} when present, so
+     * the keystore serves both an RSA and an ECDSA certificate.
+     */
+    public static KeyStore fromHomeCerts(String alias,
+                                         String ecAlias,
+                                         String password) throws Exception {
+
+        String home = System.getProperty("user.home");
+
+        return fromCerts(Paths.get(home, "certs"), alias, ecAlias, password);
+    }
+
+    /**
+     * Builds a PKCS12 KeyStore from cert.crt + cert.key in {@code dir}, plus
+     * cert-ec.crt + cert-ec.key under {@code ecAlias} when present.
+     */
+    public static KeyStore fromCerts(Path dir,
+                                     String alias,
+                                     String ecAlias,
+                                     String password) throws Exception {
+
+        KeyStore keyStore = build(dir.resolve("cert.crt"), dir.resolve("cert.key"), alias, password);
+
+        Path ecCertPath = dir.resolve("cert-ec.crt");
+        Path ecKeyPath  = dir.resolve("cert-ec.key");
+
+        if (Files.exists(ecCertPath) && Files.exists(ecKeyPath)) {
+            addEntry(keyStore, ecCertPath, ecKeyPath, ecAlias, password);
+        }
+
+        return keyStore;
+    }
+
     /**
      * Generic builder method
      */
@@ -45,38 +77,52 @@ public final class PemKeyStoreBuilder {
                                  String alias,
                                  String password) throws Exception {
 
-        // ----- Load Certificate -----
-        X509Certificate certificate;
-        try (PEMParser parser = new PEMParser(new FileReader(certPath.toFile()))) {
+        // ----- Create PKCS12 Keystore -----
+        KeyStore keyStore = KeyStore.getInstance("PKCS12");
+        keyStore.load(null, null);
+
+        addEntry(keyStore, certPath, keyPath, alias, password);
+
+        return keyStore;
+    }
 
-            X509CertificateHolder holder =
-                    (X509CertificateHolder) parser.readObject();
+    /**
+     * Adds a cert + key pair (RSA, EC or Ed25519) to an existing KeyStore
+     */
+    public static void addEntry(KeyStore keyStore,
+                                Path certPath,
+                                Path keyPath,
+                                String alias,
+                                String password) throws Exception {
 
-            certificate = new JcaX509CertificateConverter()
-                    .setProvider("BC")
-                    .getCertificate(holder);
+        // ----- Load Certificate -----
+        // JDK objects throughout: JSSE cannot sign handshakes with BouncyCastle Ed25519 keys
+        X509Certificate certificate;
+        try (InputStream in = Files.newInputStream(certPath)) {
+            certificate = (X509Certificate) CertificateFactory.getInstance("X.509").generateCertificate(in);
         }
 
         // ----- Load Private Key -----
-        PrivateKey privateKey;
+        PrivateKeyInfo keyInfo;
         try (PEMParser parser = new PEMParser(new FileReader(keyPath.toFile()))) {
 
             Object object = parser.readObject();
-            JcaPEMKeyConverter converter =
-                    new JcaPEMKeyConverter().setProvider("BC");
+            // openssl ecparam -genkey writes an EC PARAMETERS block ahead of the key
+            while (object instanceof ASN1ObjectIdentifier) {
+                object = parser.readObject();
+            }
 
             if (object instanceof PEMKeyPair keyPair) {
-                privateKey = converter.getKeyPair(keyPair).getPrivate();
-            } else if (object instanceof PrivateKeyInfo keyInfo) {
-                privateKey = converter.getPrivateKey(keyInfo);
+                keyInfo = keyPair.getPrivateKeyInfo();
+            } else if (object instanceof PrivateKeyInfo info) {
+                keyInfo = info;
             } else {
                 throw new IllegalArgumentException("Unsupported key format");
             }
         }
 
-        // ----- Create PKCS12 Keystore -----
-        KeyStore keyStore = KeyStore.getInstance("PKCS12");
-        keyStore.load(null, null);
+        PrivateKey privateKey = KeyFactory.getInstance(certificate.getPublicKey().getAlgorithm())
+                .generatePrivate(new PKCS8EncodedKeySpec(keyInfo.getEncoded()));
 
         keyStore.setKeyEntry(
                 alias,
@@ -84,7 +130,5 @@ public final class PemKeyStoreBuilder {
                 password.toCharArray(),
                 new Certificate[]{certificate}
         );
-
-        return keyStore;
     }
-}
\ No newline at end of file
+}
@@ -17,12 +17,34 @@ import java.security.KeyStore;
 import java.security.Security;
 import java.security.cert.Certificate;
 import java.security.cert.X509Certificate;
+import java.security.spec.ECGenParameterSpec;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 public class SelfSignedKeyStoreBuilder {
 
+    /**
+     * Key type of a generated entry. ECDSA signs a TLS handshake several times
+     * cheaper than RSA-2048; Ed25519 is cheaper still but browsers do not accept
+     * it for server certificates.
+     */
+    public enum KeyAlgorithm {
+        RSA("RSA", "SHA256withRSA"),
+        EC_P256("EC", "SHA256withECDSA"),
+        ED25519("Ed25519", "Ed25519");
+
+        private final String keyPairAlgorithm;
+        private final String signatureAlgorithm;
+
+        KeyAlgorithm(String keyPairAlgorithm, String signatureAlgorithm) {
+            this.keyPairAlgorithm = keyPairAlgorithm;
+            this.signatureAlgorithm = signatureAlgorithm;
+        }
+    }
+
     private String alias = "key";
     private char[] password = "changeit".toCharArray();
     private String commonName = "demo.local";
@@ -30,7 +52,8 @@ public class SelfSignedKeyStoreBuilder {
     private List<String> ipAddresses = new ArrayList<>();
     private int keySize = 2048;
     private long validityMillis = 31536000000L; // 1 year
-    private String signatureAlgorithm = "SHA256withRSA";
+    private KeyAlgorithm keyAlgorithm = KeyAlgorithm.RSA;
+    private Map<String, KeyAlgorithm> additionalKeys = new LinkedHashMap<>();
 
     public SelfSignedKeyStoreBuilder alias(String alias) {
         this.alias = alias;
@@ -62,6 +85,23 @@ public class SelfSignedKeyStoreBuilder {
         return this;
     }
 
+    /**
+     * Key type of the entry stored under {@link #alias(String)}. The key size only applies to RSA.
+     */
+    public SelfSignedKeyStoreBuilder keyAlgorithm(KeyAlgorithm keyAlgorithm) {
+        this.keyAlgorithm = keyAlgorithm;
+        return this;
+    }
+
+    /**
+     * Adds another certificate for the same names under its own alias, e.g. an
+     * ECDSA certificate next to the RSA one so the TLS stack can pick per client.
+     */
+    public SelfSignedKeyStoreBuilder addKey(String alias, KeyAlgorithm keyAlgorithm) {
+        this.additionalKeys.put(alias, keyAlgorithm);
+        return this;
+    }
+
     public SelfSignedKeyStoreBuilder validityDays(int days) {
         this.validityMillis = days * 24L * 60L * 60L * 1000L;
         return this;
@@ -77,16 +117,35 @@ public class SelfSignedKeyStoreBuilder {
             Security.addProvider(new BouncyCastleProvider());
         }
 
-        // Generate KeyPair
-        KeyPairGenerator keyGen = KeyPairGenerator.getInstance("RSA", BouncyCastleProvider.PROVIDER_NAME);
-        keyGen.initialize(keySize);
-        KeyPair keyPair = keyGen.generateKeyPair();
+        // Create PKCS12 keystore
+        KeyStore ks = KeyStore.getInstance("PKCS12");
+        ks.load(null, password);
 
         long now = System.currentTimeMillis();
+        addEntry(ks, alias, keyAlgorithm, now);
+        for (Map.Entry<String, KeyAlgorithm> key : additionalKeys.entrySet()) {
+            addEntry(ks, key.getKey(), key.getValue(), now);
+        }
+
+        return ks;
+    }
+
+    private void addEntry(KeyStore ks, String alias, KeyAlgorithm algorithm, long now) throws Exception {
+
+        // Generate KeyPair
+        KeyPairGenerator keyGen = KeyPairGenerator.getInstance(algorithm.keyPairAlgorithm, BouncyCastleProvider.PROVIDER_NAME);
+        switch (algorithm) {
+            case RSA -> keyGen.initialize(keySize);
+            case EC_P256 -> keyGen.initialize(new ECGenParameterSpec("secp256r1"));
+            case ED25519 -> {
+                // fixed curve, nothing to configure
+            }
+        }
+        KeyPair keyPair = keyGen.generateKeyPair();
 
         X500Name dn = new X500Name("CN=" + commonName);
 
-        ContentSigner signer = new JcaContentSignerBuilder(signatureAlgorithm)
+        ContentSigner signer = new JcaContentSignerBuilder(algorithm.signatureAlgorithm)
                 .setProvider(BouncyCastleProvider.PROVIDER_NAME)
                 .build(keyPair.getPrivate());
 
@@ -101,10 +160,11 @@ public class SelfSignedKeyStoreBuilder {
 
         GeneralNames san = new GeneralNames(sanList.toArray(new GeneralName[0]));
 
+        // Entries built in the same millisecond still need distinct serials
         JcaX509v3CertificateBuilder certBuilder =
                 new JcaX509v3CertificateBuilder(
                         dn,
-                        BigInteger.valueOf(now),
+                        BigInteger.valueOf(now).shiftLeft(8).add(BigInteger.valueOf(ks.size())),
                         new Date(now),
                         new Date(now + validityMillis),
                         dn,
@@ -118,11 +178,6 @@ public class SelfSignedKeyStoreBuilder {
                 .setProvider(BouncyCastleProvider.PROVIDER_NAME)
                 .getCertificate(certBuilder.build(signer));
 
-        // Create PKCS12 keystore
-        KeyStore ks = KeyStore.getInstance("PKCS12");
-        ks.load(null, password);
         ks.setKeyEntry(alias, keyPair.getPrivate(), password, new Certificate[]{cert});
-
-        return ks;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,320 @@
+package com.github.ankurpathak.websocketsdemo;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Runs message processing for /ws sessions on N single threaded shards. Every
+ * session hashes to one shard for its whole life, so its messages are handled
+ * in arrival order and per session state needs no locks, while different
+ * sessions still run in parallel. Shard queues are lock free.
+ *
+ * <p>A message is pending from {@link Lane#execute} until its reply is written,
+ * and each session may have at most {@code maxPending} of them. A session that
+ * stops reading its replies therefore holds a bounded amount of memory. Its
+ * lane stops asking for more messages at the cap and asks again once replies
+ * drain, see {@link #register(Object, String, Runnable)}.
+ *
+ * <p>Queue depth, work done per shard and per session backlog are exposed
+ * through {@link #shardStats()}, {@link #imbalance()} and {@link #hotSessions(int)}.
+ * The last two describe current load, not totals since startup: per session
+ * message rates are sampled at a fixed interval, so reading them changes nothing.
+ */
+public class SessionDispatcher implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(SessionDispatcher.class);
+
+    public record ShardStats(int shard, int sessions, int depth, int maxDepth, long executed) {
+    }
+
+    public record SessionStats(String session, int shard, int pending, long recentMessages, long messages) {
+    }
+
+    static final int DEFAULT_MAX_PENDING = 256;
+    static final Duration DEFAULT_SAMPLE_INTERVAL = Duration.ofSeconds(10);
+
+    private final Shard[] shards;
+    private final int maxPending;
+    private final Set<Lane> lanes = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService sampler;
+
+    public SessionDispatcher(int shardCount) {
+        this(shardCount, DEFAULT_MAX_PENDING, DEFAULT_SAMPLE_INTERVAL);
+    }
+
+    public SessionDispatcher(int shardCount, int maxPending) {
+        this(shardCount, maxPending, DEFAULT_SAMPLE_INTERVAL);
+    }
+
+    /**
+     * @param sampleInterval window of {@link SessionStats#recentMessages()}
+     */
+    public SessionDispatcher(int shardCount, int maxPending, Duration sampleInterval) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("Shard count must be positive");
+        }
+        if (maxPending < 1) {
+            throw new IllegalArgumentException("Max pending must be positive");
+        }
+        if (!sampleInterval.isPositive()) {
+            throw new IllegalArgumentException("Sample interval must be positive");
+        }
+        this.maxPending = maxPending;
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(i);
+        }
+        this.sampler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "ws-dispatch-sampler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = sampleInterval.toNanos();
+        Set<Lane> lanes = this.lanes;
+        sampler.scheduleAtFixedRate(() -> sample(lanes), interval, interval, TimeUnit.NANOSECONDS);
+        logger.info("Session dispatch on {} shards, at most {} pending messages per session", shardCount, maxPending);
+    }
+
+    /**
+     * Binds a session to its shard. {@code key} picks the shard, {@code label}
+     * names the session in {@link #hotSessions(int)}.
+     */
+    public Lane register(Object key, String label) {
+        return register(key, label, () -> {
+        });
+    }
+
+    /**
+     * Binds a session that can pause reading. {@code demand} asks it for its next
+     * message and runs whenever the lane has room for one: after a message is
+     * queued below the cap, or when a reply drains a full lane.
+     */
+    public Lane register(Object key, String label, Runnable demand) {
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        Shard shard = shards[Math.floorMod(h * 0x9E3779B9, shards.length)];
+        Lane lane = new Lane(shard, label, maxPending, demand);
+        shard.sessions.incrementAndGet();
+        lanes.add(lane);
+        return lane;
+    }
+
+    public void unregister(Lane lane) {
+        lane.open = false;
+        if (lanes.remove(lane)) {
+            lane.shard.sessions.decrementAndGet();
+        }
+    }
+
+    public List<ShardStats> shardStats() {
+        List<ShardStats> stats = new ArrayList<>(shards.length);
+        for (Shard shard : shards) {
+            stats.add(new ShardStats(shard.index, shard.sessions.get(), shard.depth.get(),
+                    shard.maxDepth.get(), shard.executed));
+        }
+        return stats;
+    }
+
+    /**
+     * Deepest shard queue right now over the mean depth, 1.0 when the backlog is
+     * even or there is none.
+     */
+    public double imbalance() {
+        int max = 0;
+        long total = 0;
+        for (Shard shard : shards) {
+            int depth = shard.depth.get();
+            max = Math.max(max, depth);
+            total += depth;
+        }
+        return total == 0 ? 1.0 : max / ((double) total / shards.length);
+    }
+
+    /**
+     * Open sessions with the most pending messages, then the most messages in the
+     * last full sample interval.
+     */
+    public List<SessionStats> hotSessions(int limit) {
+        List<SessionStats> stats = new ArrayList<>(lanes.size());
+        for (Lane lane : lanes) {
+            stats.add(new SessionStats(lane.label, lane.shard.index, lane.pending.get(), lane.recent, lane.messages.get()));
+        }
+        return stats.stream()
+                .sorted(Comparator.comparingInt(SessionStats::pending)
+                        .thenComparingLong(SessionStats::recentMessages)
+                        .reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    /**
+     * Closes the sample window of every open session. Runs on the sampler thread.
+     */
+    void sample() {
+        sample(lanes);
+    }
+
+    private static void sample(Set<Lane> lanes) {
+        for (Lane lane : lanes) {
+            long messages = lane.messages.get();
+            lane.recent = messages - lane.sampled;
+            lane.sampled = messages;
+        }
+    }
+
+    @Override
+    public void close() {
+        sampler.shutdownNow();
+        for (Shard shard : shards) {
+            shard.running = false;
+            LockSupport.unpark(shard.thread);
+        }
+    }
+
+    /**
+     * A session's handle onto its shard.
+     */
+    public static final class Lane {
+
+        private final Shard shard;
+        private final String label;
+        private final int maxPending;
+        private final Runnable demand;
+        private final AtomicLong messages = new AtomicLong();
+        // Queued or being written
+        private final AtomicInteger pending = new AtomicInteger();
+        // Only the sampler writes these: messages at the last sample and in the window before it
+        private volatile long sampled;
+        private volatile long recent;
+        private volatile boolean open = true;
+
+        private Lane(Shard shard, String label, int maxPending, Runnable demand) {
+            this.shard = shard;
+            this.label = label;
+            this.maxPending = maxPending;
+            this.demand = demand;
+        }
+
+        /**
+         * Queues the task behind everything already submitted for this session.
+         * The task is handed a callback to run once its reply is written or has
+         * failed, the message stays pending until then.
+         *
+         * @return false, with nothing queued, when the session is at its cap
+         */
+        public boolean execute(Consumer<Runnable> task) {
+            int queued = pending.incrementAndGet();
+            if (queued > maxPending) {
+                pending.decrementAndGet();
+                return false;
+            }
+            messages.incrementAndGet();
+            shard.execute(() -> {
+                Written written = new Written();
+                try {
+                    task.accept(written);
+                } catch (RuntimeException | Error x) {
+                    written.run();
+                    throw x;
+                }
+            });
+            if (queued < maxPending) {
+                demand();
+            }
+            return true;
+        }
+
+        private void release() {
+            // Only the message that filled the lane held back demand
+            if (pending.getAndDecrement() == maxPending) {
+                demand();
+            }
+        }
+
+        private void demand() {
+            if (open) {
+                demand.run();
+            }
+        }
+
+        /**
+         * Releases its message once, however many times the reply reports back.
+         */
+        private final class Written extends AtomicBoolean implements Runnable {
+
+            @Override
+            public void run() {
+                if (compareAndSet(false, true)) {
+                    release();
+                }
+            }
+        }
+    }
+
+    private static final class Shard implements Runnable {
+
+        private final int index;
+        private final ConcurrentLinkedQueue<Runnable> queue = new ConcurrentLinkedQueue<>();
+        // Tasks submitted and not yet finished; a producer moving it off zero wakes the shard
+        private final AtomicInteger depth = new AtomicInteger();
+        private final AtomicInteger maxDepth = new AtomicInteger();
+        private final AtomicInteger sessions = new AtomicInteger();
+        private final Thread thread;
+        // Only the shard thread writes it
+        private volatile long executed;
+        private volatile boolean running = true;
+
+        private Shard(int index) {
+            this.index = index;
+            this.thread = new Thread(this, "ws-shard-" + index);
+            this.thread.setDaemon(true);
+            this.thread.start();
+        }
+
+        void execute(Runnable task) {
+            queue.offer(task);
+            int queued = depth.getAndIncrement();
+            if (queued == 0) {
+                LockSupport.unpark(thread);
+            }
+            if (queued + 1 > maxDepth.get()) {
+                maxDepth.accumulateAndGet(queued + 1, Math::max);
+            }
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                Runnable task = queue.poll();
+                if (task == null) {
+                    LockSupport.park(this);
+                    continue;
+                }
+                try {
+                    task.run();
+                } catch (Throwable x) {
+                    logger.warn("Task failed on shard {}", index, x);
+                } finally {
+                    executed++;
+                    depth.decrementAndGet();
+                }
+            }
+        }
+    }
+}
@@ -34,7 +34,8 @@ public class SslBundleConfig {
     private static final Logger log = LoggerFactory.getLogger(SslBundleConfig.class);
 
     private static final String BUNDLE_NAME = "server";
-    private static final String ALIAS = "key";
+    static final String ALIAS = "key";
+    static final String EC_ALIAS = "key-ec";
     private static final String PASSWORD = "changeit";
 
     @Value("${server.port:8443}")
@@ -57,10 +58,14 @@ public class SslBundleConfig {
                         .validityDays(365)
                         .build(); */
 
-                KeyStore keyStore = PemKeyStoreBuilder.fromHomeCerts(ALIAS, PASSWORD);
+                KeyStore keyStore = PemKeyStoreBuilder.fromHomeCerts(ALIAS, EC_ALIAS, PASSWORD);
 
                 SslStoreBundle storeBundle = SslStoreBundle.of(keyStore, PASSWORD, null);
-                SslBundleKey bundleKey = SslBundleKey.of(PASSWORD, ALIAS);
+                // With both an RSA and an ECDSA entry leave the alias open so the key
+                // manager picks per handshake from what the client accepts.
+                boolean dual = keyStore.containsAlias(EC_ALIAS);
+                SslBundleKey bundleKey = SslBundleKey.of(PASSWORD, dual ? null : ALIAS);
+                log.info("Certificates: {}", dual ? "RSA + ECDSA" : "single");
 
                 registry.registerBundle(BUNDLE_NAME, SslBundle.of(storeBundle, bundleKey));
                 log.info("✅ Bundle '{}' registered.", BUNDLE_NAME);
@@ -72,5 +77,16 @@ public class SslBundleConfig {
         };
     }
 
+    /**
+     * Alias for connectors that can only serve one certificate: ECDSA when present.
+     */
+    static String preferredAlias(KeyStore keyStore) {
+        try {
+            return keyStore.containsAlias(EC_ALIAS) ? EC_ALIAS : ALIAS;
+        } catch (KeyStoreException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
 
 }
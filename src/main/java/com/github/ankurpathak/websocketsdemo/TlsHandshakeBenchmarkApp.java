@@ -0,0 +1,148 @@
+package com.github.ankurpathak.websocketsdemo;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult.HandshakeStatus;
+import javax.net.ssl.SSLException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyStore;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Full TLS handshakes per second for each {@link SelfSignedKeyStoreBuilder.KeyAlgorithm},
+ * client and server {@link SSLEngine}s talking in memory so only the TLS work is timed.
+ * Sessions are never resumed, every handshake does the server signature. Besides the
+ * end to end rate the server side CPU time is reported, which is what bounds how many
+ * handshakes a server core can accept. Keys are written as PEM and loaded back
+ * through {@link PemKeyStoreBuilder}, the way the server reads ~/certs.
+ *
+ * <p>Argument: {@code [handshakes]}, default 2000.
+ */
+public class TlsHandshakeBenchmarkApp {
+
+    private static final Logger logger =
+            Logger.getLogger(TlsHandshakeBenchmarkApp.class.getName());
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    public static void main(String[] args) throws Exception {
+
+        int handshakes = args.length > 0 ? Integer.parseInt(args[0]) : 2_000;
+        char[] password = "changeit".toCharArray();
+
+        SSLContext client = TrustAllManager.sslContext("TLSv1.3");
+
+        for (SelfSignedKeyStoreBuilder.KeyAlgorithm algorithm : SelfSignedKeyStoreBuilder.KeyAlgorithm.values()) {
+
+            KeyStore generated = new SelfSignedKeyStoreBuilder()
+                    .alias(SslBundleConfig.ALIAS)
+                    .password(password)
+                    .keyAlgorithm(algorithm)
+                    .addDnsName("localhost")
+                    .build();
+            Path dir = Files.createTempDirectory("certs");
+            CertificateGeneratorApp.writePem(generated, SslBundleConfig.ALIAS, password, dir, "cert");
+            KeyStore keyStore = PemKeyStoreBuilder.fromCerts(dir, SslBundleConfig.ALIAS, SslBundleConfig.EC_ALIAS, "changeit");
+            Files.delete(dir.resolve("cert.crt"));
+            Files.delete(dir.resolve("cert.key"));
+            Files.delete(dir);
+
+            KeyManagerFactory kmf = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+            kmf.init(keyStore, password);
+            SSLContext server = SSLContext.getInstance("TLSv1.3");
+            server.init(kmf.getKeyManagers(), null, null);
+
+            try {
+                for (int i = 0; i < Math.max(100, handshakes / 5); i++) {
+                    handshake(client, server);
+                }
+
+                long serverNanos = 0;
+                long start = System.nanoTime();
+                for (int i = 0; i < handshakes; i++) {
+                    serverNanos += handshake(client, server);
+                }
+                double seconds = (System.nanoTime() - start) / 1e9;
+                double serverSeconds = serverNanos / 1e9;
+
+                logger.info(String.format("%-8s %7.0f handshakes/s end to end, server side %7.0f handshakes/s (%.0f us each)",
+                        algorithm, handshakes / seconds, handshakes / serverSeconds, serverSeconds * 1e6 / handshakes));
+            } catch (SSLException e) {
+                logger.log(Level.WARNING, algorithm + " not usable by this JSSE", e);
+            }
+        }
+    }
+
+    /**
+     * Returns the nanoseconds spent in the server engine.
+     */
+    private static long handshake(SSLContext clientContext, SSLContext serverContext) throws SSLException {
+        // No peer host/port, so the client session cache never offers resumption
+        SSLEngine client = clientContext.createSSLEngine();
+        client.setUseClientMode(true);
+        SSLEngine server = serverContext.createSSLEngine();
+        server.setUseClientMode(false);
+        return handshake(client, server);
+    }
+
+    /**
+     * Runs the handshake between two fresh engines in memory, returning the
+     * nanoseconds spent in the server engine.
+     */
+    static long handshake(SSLEngine client, SSLEngine server) throws SSLException {
+        ByteBuffer empty = ByteBuffer.allocate(0);
+        ByteBuffer clientToServer = ByteBuffer.allocate(BUFFER_SIZE);
+        ByteBuffer serverToClient = ByteBuffer.allocate(BUFFER_SIZE);
+        ByteBuffer clientApp = ByteBuffer.allocate(BUFFER_SIZE);
+        ByteBuffer serverApp = ByteBuffer.allocate(BUFFER_SIZE);
+
+        long serverNanos = 0;
+        long mark;
+
+        client.beginHandshake();
+        mark = System.nanoTime();
+        server.beginHandshake();
+        serverNanos += System.nanoTime() - mark;
+
+        for (int round = 0; handshaking(client) || handshaking(server); round++) {
+            if (round > 100) {
+                throw new SSLException("Handshake did not complete");
+            }
+            client.wrap(empty, clientToServer);
+            runTasks(client);
+            mark = System.nanoTime();
+            server.wrap(empty, serverToClient);
+            runTasks(server);
+            serverNanos += System.nanoTime() - mark;
+
+            clientToServer.flip();
+            serverToClient.flip();
+
+            client.unwrap(serverToClient, clientApp);
+            runTasks(client);
+            mark = System.nanoTime();
+            server.unwrap(clientToServer, serverApp);
+            runTasks(server);
+            serverNanos += System.nanoTime() - mark;
+
+            clientToServer.compact();
+            serverToClient.compact();
+        }
+        return serverNanos;
+    }
+
+    private static boolean handshaking(SSLEngine engine) {
+        return engine.getHandshakeStatus() != HandshakeStatus.NOT_HANDSHAKING;
+    }
+
+    private static void runTasks(SSLEngine engine) {
+        Runnable task;
+        while ((task = engine.getDelegatedTask()) != null) {
+            task.run();
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.github.ankurpathak.websocketsdemo;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.X509TrustManager;
+import java.security.GeneralSecurityException;
+import java.security.cert.X509Certificate;
+
+/**
+ * Accepts any certificate, for the load and benchmark clients talking to the
+ * self signed demo server. Never use outside those.
+ */
+final class TrustAllManager implements X509TrustManager {
+
+    private TrustAllManager() {
+    }
+
+    /**
+     * Client context for {@code protocol} (e.g. {@code TLS}, {@code TLSv1.3}) that trusts every server.
+     */
+    static SSLContext sslContext(String protocol) throws GeneralSecurityException {
+        SSLContext context = SSLContext.getInstance(protocol);
+        context.init(null, new TrustManager[]{new TrustAllManager()}, null);
+        return context;
+    }
+
+    @Override
+    public void checkClientTrusted(X509Certificate[] chain, String authType) {
+    }
+
+    @Override
+    public void checkServerTrusted(X509Certificate[] chain, String authType) {
+    }
+
+    @Override
+    public X509Certificate[] getAcceptedIssuers() {
+        return new X509Certificate[0];
+    }
+}
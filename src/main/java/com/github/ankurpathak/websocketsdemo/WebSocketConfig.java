@@ -1,10 +1,15 @@
 package com.github.ankurpathak.websocketsdemo;
 
+import jakarta.websocket.server.ServerEndpointConfig;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.socket.config.annotation.EnableWebSocket;
 import org.springframework.web.socket.server.standard.ServerEndpointExporter;
 
+import java.time.Duration;
+
 @Configuration
 @EnableWebSocket
 public class WebSocketConfig {
@@ -12,4 +17,29 @@ public class WebSocketConfig {
    public ServerEndpointExporter serverEndpointExporter() {
         return new ServerEndpointExporter();
    }
+
+   @Bean
+   public MessageCodec jsonMessageCodec() {
+        return JsonMessageCodec.INSTANCE;
+   }
+
+   @Bean
+   public MessageCodec cborMessageCodec() {
+        return CborMessageCodec.INSTANCE;
+   }
+
+   @Bean
+   public SessionDispatcher sessionDispatcher(@Value("${websocket.dispatch.shards:0}") int shards,
+                                              @Value("${websocket.dispatch.max-pending:256}") int maxPending,
+                                              @Value("${websocket.dispatch.sample-interval:10s}") Duration sampleInterval) {
+        // 0 means one shard per core
+        return new SessionDispatcher(shards > 0 ? shards : Runtime.getRuntime().availableProcessors(),
+                maxPending, sampleInterval);
+   }
+
+   @Bean
+   @ConditionalOnExpression("!${server.http2.enabled} and !${websocket.native-upgrade.enabled:true}")
+   public ServerEndpointConfig http1WebSocketEndpoint(SessionDispatcher dispatcher, MessageCodecs codecs) {
+        return Http1WebSocketHandler.endpointConfig(dispatcher, codecs.selected());
+   }
 }
\ No newline at end of file
@@ -0,0 +1,37 @@
+package com.github.ankurpathak.websocketsdemo;
+
+import org.eclipse.jetty.websocket.api.Session;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Open /ws sessions of this JVM, shared by every connector. Each session is
+ * recorded with the name of the connector (listener and its selectors) that
+ * accepted it, so the spread across SO_REUSEPORT listeners can be checked.
+ */
+@Component
+public class WebSocketSessionRegistry {
+
+    private final Map<Session, String> sessions = new ConcurrentHashMap<>();
+
+    public void register(Session session, String connector) {
+        sessions.put(session, connector != null ? connector : "default");
+    }
+
+    public void unregister(Session session) {
+        sessions.remove(session);
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    public Map<String, Integer> sessionsByConnector() {
+        Map<String, Integer> counts = new TreeMap<>();
+        sessions.values().forEach(connector -> counts.merge(connector, 1, Integer::sum));
+        return counts;
+    }
+}
@@ -6,13 +6,19 @@ import org.eclipse.jetty.http3.server.HTTP3ServerConnectionFactory;
 import org.eclipse.jetty.http3.server.HTTP3ServerQuicConfiguration;
 import org.eclipse.jetty.quic.quiche.server.QuicheServerConnector;
 import org.eclipse.jetty.quic.quiche.server.QuicheServerQuicConfiguration;
+import org.eclipse.jetty.server.ConnectionFactory;
+import org.eclipse.jetty.server.Connector;
 import org.eclipse.jetty.server.Handler;
 import org.eclipse.jetty.server.HttpConfiguration;
 import org.eclipse.jetty.server.SecureRequestCustomizer;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
 import org.eclipse.jetty.server.handler.ContextHandler;
 import org.eclipse.jetty.server.handler.ContextHandlerCollection;
 import org.eclipse.jetty.util.ssl.SslContextFactory;
 import org.eclipse.jetty.websocket.server.WebSocketUpgradeHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
@@ -24,10 +30,12 @@ import org.springframework.boot.web.server.WebServerFactoryCustomizer;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.io.IOException;
 import java.nio.file.Paths;
+import java.util.Map;
 
 @SpringBootApplication
 public class WebsocketsDemoApplication {
@@ -48,6 +56,37 @@ class HelloWorld {
     }
 }
 
+@RestController
+@RequestMapping("/sessions")
+class WebSocketSessions {
+
+    @Autowired
+    private WebSocketSessionRegistry sessionRegistry;
+
+    @GetMapping
+    public Map<String, Object> sessions() {
+        return Map.of(
+                "total", sessionRegistry.size(),
+                "byConnector", sessionRegistry.sessionsByConnector());
+    }
+}
+
+@RestController
+@RequestMapping("/shards")
+class SessionShards {
+
+    @Autowired
+    private SessionDispatcher dispatcher;
+
+    @GetMapping
+    public Map<String, Object> shards(@RequestParam(defaultValue = "10") int top) {
+        return Map.of(
+                "imbalance", dispatcher.imbalance(),
+                "shards", dispatcher.shardStats(),
+                "hotSessions", dispatcher.hotSessions(top));
+    }
+}
+
 
 @Configuration
 class AddResponseFilter implements Filter {
@@ -69,11 +108,20 @@ class AddResponseFilter implements Filter {
 @Configuration
 class JettyConfiguration implements WebServerFactoryCustomizer<JettyServletWebServerFactory>  {
 
-
+    private static final Logger logger = LoggerFactory.getLogger(JettyConfiguration.class);
 
     @Autowired
     private DefaultSslBundleRegistry defaultSslBundleRegistry;
 
+    @Autowired
+    private WebSocketSessionRegistry sessionRegistry;
+
+    @Autowired
+    private SessionDispatcher dispatcher;
+
+    @Autowired
+    private MessageCodecs codecs;
+
     @Value( "${server.port}" )
     private Integer serverPort;
 
@@ -81,6 +129,12 @@ class JettyConfiguration implements WebServerFactoryCustomizer<JettyServletWebSe
     @Value("${server.http2.enabled}")
     private Boolean http2Enabled;
 
+    @Value("${websocket.native-upgrade.enabled:true}")
+    private Boolean nativeUpgradeEnabled;
+
+    @Value("${jetty.reuse-port.connectors:1}")
+    private Integer reusePortConnectors;
+
 
 
 
@@ -100,25 +154,28 @@ class JettyConfiguration implements WebServerFactoryCustomizer<JettyServletWebSe
             Handler[] handlersArr = null;
 
 
-            if(http2Enabled){
-                // If HTTP/2 is disabled, we can just use the Spring handler directly
-                // 1. WebSocket handler (RFC 8441)
+            if(http2Enabled || nativeUpgradeEnabled){
+                // 1. WebSocket handler (RFC 6455 upgrade and RFC 8441 CONNECT), answers /ws
+                // before the Spring filter chain and servlet dispatch are entered
                 WebSocketUpgradeHandler http2WsHandler =
                         WebSocketUpgradeHandler.from(server, container -> {
                             container.addMapping("/ws",
-                                    (req, res, _) -> new Http2WebSocketHandler());
+                                    (req, res, _) -> new Http2WebSocketHandler(server.getByteBufferPool(),
+                                            sessionRegistry, dispatcher, req.getConnectionMetaData().getConnector().getName(),
+                                            codecs.selected()));
                         });
 
                 ContextHandler wsHandler = new ContextHandler("/");
                 wsHandler.setHandler(http2WsHandler);
 
                 handlersArr = new Handler[]{
-                        wsHandler,        // RFC 8441 first
+                        wsHandler,        // native /ws first
                         springHandler    // Spring second
                 };
             }
 
             if(handlersArr == null){
+                // Native upgrade disabled on HTTP/1.1, Http1WebSocketHandler serves /ws through Spring
                 handlersArr = new Handler[]{
                         springHandler    // Spring first
                 };
@@ -135,6 +192,8 @@ class JettyConfiguration implements WebServerFactoryCustomizer<JettyServletWebSe
             SslContextFactory.Server h3Ssl = new SslContextFactory.Server();
             h3Ssl.setKeyStore(keyStore);
             h3Ssl.setKeyStorePassword("changeit");
+            // quiche serves a single certificate, QUIC clients all speak TLS 1.3 so prefer ECDSA
+            h3Ssl.setCertAlias(SslBundleConfig.preferredAlias(keyStore));
 
             QuicheServerQuicConfiguration quicConfig = HTTP3ServerQuicConfiguration.configure(new QuicheServerQuicConfiguration(Paths.get(System.getProperty("java.io.tmpdir"))));
             quicConfig.setBidirectionalMaxStreams(1024 * 1024);
@@ -146,12 +205,58 @@ class JettyConfiguration implements WebServerFactoryCustomizer<JettyServletWebSe
             quicConnector.setPort(serverPort);
             server.addConnector(quicConnector);
 
+            if (reusePortConnectors > 1) {
+                addReusePortConnectors(server);
+            }
+
 
         };
 
         factory.addServerCustomizers(customizer);
     }
 
+    /**
+     * Replaces Spring's TCP connector with {@code jetty.reuse-port.connectors}
+     * listeners on the server port, each bound with SO_REUSEPORT so the kernel
+     * spreads accepted connections across them. Every listener gets one acceptor
+     * and its share of the cores as selectors, all inside this JVM and sharing
+     * one Spring context, thread pool and {@link WebSocketSessionRegistry}. Kernel
+     * balancing needs Linux; macOS allows the bind but does not spread connections.
+     */
+    private void addReusePortConnectors(Server server) {
+
+        ServerConnector primary = null;
+        for (Connector connector : server.getConnectors()) {
+            if (connector instanceof ServerConnector serverConnector && serverConnector.getPort() == serverPort) {
+                primary = serverConnector;
+            }
+        }
+        if (primary == null) {
+            logger.warn("No TCP connector on port {}, SO_REUSEPORT listeners not added", serverPort);
+            return;
+        }
+
+        int selectors = Math.max(1, Runtime.getRuntime().availableProcessors() / reusePortConnectors);
+
+        // Connection factories (TLS, ALPN, h2, http/1.1) are reused, only the listening socket differs.
+        // Spring's connector has default acceptor and selector counts, so it is replaced, not kept.
+        ConnectionFactory[] factories = primary.getConnectionFactories().toArray(new ConnectionFactory[0]);
+
+        for (int i = 0; i < reusePortConnectors; i++) {
+            ServerConnector connector = new ServerConnector(server, 1, selectors, factories);
+            connector.setName("reuseport-" + i);
+            connector.setHost(primary.getHost());
+            connector.setPort(serverPort);
+            connector.setReusePort(true);
+            connector.setIdleTimeout(primary.getIdleTimeout());
+            connector.setAcceptQueueSize(primary.getAcceptQueueSize());
+            server.addConnector(connector);
+        }
+        server.removeConnector(primary);
+
+        logger.info("{} SO_REUSEPORT listeners on port {}, {} selectors each", reusePortConnectors, serverPort, selectors);
+    }
+
 }
 
 
@@ -0,0 +1,112 @@
+package com.github.ankurpathak.websocketsdemo;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class CborMessageCodecTests {
+
+    private final CborMessageCodec codec = CborMessageCodec.INSTANCE;
+
+    @Test
+    void roundTrips() {
+        EchoMessage message = new EchoMessage("hello", "/127.0.0.1:50000", null);
+
+        ByteBuffer encoded = encode(message);
+
+        assertThat(encoded.get(0)).isEqualTo((byte) 0x83);
+        assertThat(codec.decode(encoded)).isEqualTo(message);
+        assertThat(encoded.hasRemaining()).isFalse();
+    }
+
+    @Test
+    void roundTripsNonAscii() {
+        EchoMessage message = new EchoMessage("h\u00e9llo \u20ac \uD83D\uDE00", "\u65e5\u672c", "");
+
+        assertThat(codec.decode(encode(message))).isEqualTo(message);
+    }
+
+    @Test
+    void replacesLoneSurrogates() {
+        EchoMessage message = EchoMessage.of("a\uD83Db\uDE00");
+
+        assertThat(codec.decode(encode(message))).isEqualTo(EchoMessage.of("a?b?"));
+    }
+
+    @Test
+    void roundTripsEveryLengthHeader() {
+        for (int length : new int[]{23, 24, 255, 256, 65535, 65536}) {
+            EchoMessage message = EchoMessage.of("x".repeat(length));
+
+            assertThat(codec.decode(encode(message))).isEqualTo(message);
+        }
+    }
+
+    @Test
+    void decodesFromDirectBuffer() {
+        ByteBuffer heap = encode(EchoMessage.of("direct"));
+        ByteBuffer direct = ByteBuffer.allocateDirect(heap.remaining()).put(heap).flip();
+
+        assertThat(codec.decode(direct)).isEqualTo(EchoMessage.of("direct"));
+    }
+
+    @Test
+    void acceptsShortAndLongArrays() {
+        // ["hi"] and ["hi", null, null, "extra"]
+        assertThat(codec.decode(bytes(0x81, 0x62, 'h', 'i'))).isEqualTo(EchoMessage.of("hi"));
+        assertThat(codec.decode(bytes(0x84, 0x62, 'h', 'i', 0xF6, 0xF6, 0x61, 'x'))).isEqualTo(EchoMessage.of("hi"));
+    }
+
+    @Test
+    void rejectsMalformedInput() {
+        assertThatIllegalArgumentException().isThrownBy(() -> codec.decode(bytes()))
+                .withMessageContaining("unexpected end of input");
+        assertThatIllegalArgumentException().isThrownBy(() -> codec.decode(bytes(0x62, 'h', 'i')))
+                .withMessageContaining("expected array");
+        assertThatIllegalArgumentException().isThrownBy(() -> codec.decode(bytes(0x81, 0x01)))
+                .withMessageContaining("expected text string or null");
+        assertThatIllegalArgumentException().isThrownBy(() -> codec.decode(bytes(0x81, 0x7F)))
+                .withMessageContaining("unsupported length encoding");
+    }
+
+    @Test
+    void rejectsTruncatedInput() {
+        ByteBuffer encoded = encode(new EchoMessage("hello", "/127.0.0.1:50000", "/127.0.0.1:8443"));
+
+        for (int length = 0; length < encoded.remaining(); length++) {
+            ByteBuffer truncated = encoded.duplicate().limit(length);
+
+            assertThatIllegalArgumentException().isThrownBy(() -> codec.decode(truncated))
+                    .withMessageStartingWith("Malformed CBOR message");
+        }
+        assertThatIllegalArgumentException().isThrownBy(() -> codec.decode(bytes(0x81, 0x79, 0x01)))
+                .withMessageContaining("unexpected end of input");
+        assertThatIllegalArgumentException().isThrownBy(() -> codec.decode(bytes(0x81, 0x65, 'h', 'i')))
+                .withMessageContaining("truncated text string");
+    }
+
+    @Test
+    void hasNoTextForm() {
+        assertThatExceptionOfType(UnsupportedOperationException.class)
+                .isThrownBy(() -> codec.encodeText(EchoMessage.of("hi")))
+                .withMessage("cbor is a binary codec");
+    }
+
+    private ByteBuffer encode(EchoMessage message) {
+        ByteBuffer out = ByteBuffer.allocate(codec.maxEncodedLength(message));
+        codec.encode(message, out);
+        return out.flip();
+    }
+
+    private static ByteBuffer bytes(int... values) {
+        ByteBuffer buffer = ByteBuffer.allocate(values.length);
+        for (int value : values) {
+            buffer.put((byte) value);
+        }
+        return buffer.flip();
+    }
+}
@@ -0,0 +1,64 @@
+package com.github.ankurpathak.websocketsdemo;
+
+import jakarta.websocket.DecodeException;
+import jakarta.websocket.server.ServerEndpointConfig;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+class JakartaMessageCodecsTests {
+
+    private final EchoMessage message = new EchoMessage("hello", "/127.0.0.1:50000", "/127.0.0.1:8443");
+
+    @Test
+    void registersAdaptersForTheCodecsFrameType() {
+        assertThat(JakartaMessageCodecs.encoders(JsonMessageCodec.INSTANCE)).containsExactly(JakartaMessageCodecs.TextEncoder.class);
+        assertThat(JakartaMessageCodecs.decoders(JsonMessageCodec.INSTANCE)).containsExactly(JakartaMessageCodecs.TextDecoder.class);
+        assertThat(JakartaMessageCodecs.encoders(CborMessageCodec.INSTANCE)).containsExactly(JakartaMessageCodecs.BinaryEncoder.class);
+        assertThat(JakartaMessageCodecs.decoders(CborMessageCodec.INSTANCE)).containsExactly(JakartaMessageCodecs.BinaryDecoder.class);
+    }
+
+    @Test
+    void textAdaptersRoundTrip() throws DecodeException {
+        ServerEndpointConfig config = config(JsonMessageCodec.INSTANCE);
+        var encoder = new JakartaMessageCodecs.TextEncoder();
+        var decoder = new JakartaMessageCodecs.TextDecoder();
+        encoder.init(config);
+        decoder.init(config);
+
+        String encoded = encoder.encode(message);
+
+        assertThat(encoded).isEqualTo(JsonMessageCodec.INSTANCE.encodeText(message));
+        assertThat(decoder.decode(encoded)).isEqualTo(message);
+    }
+
+    @Test
+    void binaryAdaptersRoundTrip() throws DecodeException {
+        ServerEndpointConfig config = config(CborMessageCodec.INSTANCE);
+        var encoder = new JakartaMessageCodecs.BinaryEncoder();
+        var decoder = new JakartaMessageCodecs.BinaryDecoder();
+        encoder.init(config);
+        decoder.init(config);
+
+        assertThat(decoder.decode(encoder.encode(message))).isEqualTo(message);
+    }
+
+    @Test
+    void binaryDecoderReportsMalformedInput() {
+        var decoder = new JakartaMessageCodecs.BinaryDecoder();
+        decoder.init(config(CborMessageCodec.INSTANCE));
+
+        assertThatExceptionOfType(DecodeException.class)
+                .isThrownBy(() -> decoder.decode(ByteBuffer.wrap(new byte[]{1, 2, 3})))
+                .withMessageStartingWith("Malformed CBOR message");
+    }
+
+    private static ServerEndpointConfig config(MessageCodec codec) {
+        ServerEndpointConfig config = ServerEndpointConfig.Builder.create(Http1WebSocketHandler.class, "/ws").build();
+        JakartaMessageCodecs.configure(config, codec);
+        return config;
+    }
+}
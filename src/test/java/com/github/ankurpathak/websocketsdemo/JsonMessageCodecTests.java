@@ -0,0 +1,106 @@
+package com.github.ankurpathak.websocketsdemo;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JsonMessageCodecTests {
+
+    private final JsonMessageCodec codec = JsonMessageCodec.INSTANCE;
+
+    @Test
+    void roundTripsText() {
+        EchoMessage message = new EchoMessage("hello", "/127.0.0.1:50000", "/127.0.0.1:8443");
+
+        String text = codec.encodeText(message);
+
+        assertThat(text).isEqualTo("{\"message\":\"hello\",\"remoteAddr\":\"/127.0.0.1:50000\",\"localAddr\":\"/127.0.0.1:8443\"}");
+        assertThat(codec.decodeText(text)).isEqualTo(message);
+    }
+
+    @Test
+    void roundTripsBuffer() {
+        EchoMessage message = new EchoMessage("hello", null, "/127.0.0.1:8443");
+
+        assertThat(decode(encode(message))).isEqualTo(message);
+    }
+
+    @Test
+    void roundTripsNonAsciiAndSurrogates() {
+        EchoMessage message = new EchoMessage("h\u00e9llo \u20ac \uD83D\uDE00 \u65e5\u672c", "\uD83D", "\uDE00x");
+
+        assertThat(codec.decodeText(codec.encodeText(message))).isEqualTo(message);
+        assertThat(decode(encode(message))).isEqualTo(message);
+    }
+
+    @Test
+    void roundTripsEscapes() {
+        EchoMessage message = EchoMessage.of("\"quoted\" \\ back\nslash\t\u0000\u001f");
+
+        assertThat(codec.decodeText(codec.encodeText(message))).isEqualTo(message);
+        assertThat(decode(encode(message))).isEqualTo(message);
+    }
+
+    @Test
+    void staysWithinMaxEncodedLength() {
+        EchoMessage message = new EchoMessage("\u0001".repeat(100), "\uD83D".repeat(10), null);
+
+        ByteBuffer out = ByteBuffer.allocate(codec.maxEncodedLength(message));
+        codec.encode(message, out);
+
+        assertThat(out.position()).isLessThanOrEqualTo(codec.maxEncodedLength(message));
+    }
+
+    @Test
+    void decodesFromDirectBuffer() {
+        ByteBuffer heap = encode(EchoMessage.of("direct"));
+        ByteBuffer direct = ByteBuffer.allocateDirect(heap.remaining()).put(heap).flip();
+
+        assertThat(codec.decode(direct)).isEqualTo(EchoMessage.of("direct"));
+        assertThat(direct.hasRemaining()).isFalse();
+    }
+
+    @Test
+    void ignoresMissingAddresses() {
+        assertThat(codec.decodeText(" {\"message\":\"hi\"} ")).isEqualTo(EchoMessage.of("hi"));
+        assertThat(codec.decodeText("{\"message\":null}")).isEqualTo(EchoMessage.of(null));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "hello",
+            "",
+            "{hello}",
+            "{}",
+            "{\"a\":1}",
+            "{\"symbol\":\"ACME\",\"bid\":101.25}",
+            "{\"message\":\"hi\",\"seq\":1}",
+            "{\"message\":1}",
+            "{\"message\":\"hi\"",
+            "{\"message\":\"h",
+            "{\"message\":\"\\u12\"}",
+            "{\"message\":\"hi\"} trailing",
+            "[\"message\"]",
+            "\"message\"",
+            "null"
+    })
+    void takesAnythingElseAsTheMessage(String text) {
+        assertThat(codec.decodeText(text)).isEqualTo(EchoMessage.of(text));
+        assertThat(decode(ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8)))).isEqualTo(EchoMessage.of(text));
+    }
+
+    private ByteBuffer encode(EchoMessage message) {
+        ByteBuffer out = ByteBuffer.allocate(codec.maxEncodedLength(message));
+        codec.encode(message, out);
+        return out.flip();
+    }
+
+    private EchoMessage decode(ByteBuffer in) {
+        return codec.decode(in);
+    }
+}
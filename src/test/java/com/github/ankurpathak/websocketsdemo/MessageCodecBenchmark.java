@@ -0,0 +1,81 @@
+package com.github.ankurpathak.websocketsdemo;
+
+import org.eclipse.jetty.io.ArrayByteBufferPool;
+import org.eclipse.jetty.io.ByteBufferPool;
+import org.eclipse.jetty.io.RetainableByteBuffer;
+import org.eclipse.jetty.util.BufferUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode/decode cost of the {@link MessageCodec}s, encoding into pooled buffers
+ * the way {@link Http2WebSocketHandler} does. The wire size is printed at setup.
+ *
+ * <p>Run after {@code ./mvnw test-compile dependency:build-classpath -Dmdep.outputFile=target/test-classpath.txt} with
+ * {@code java -cp target/test-classes:target/classes:$(cat target/test-classpath.txt) org.openjdk.jmh.Main MessageCodecBenchmark}.
+ * Surefire does not pick it up, it is not a test.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class MessageCodecBenchmark {
+
+    @Param({"json", "cbor"})
+    private String codecName;
+
+    private final EchoMessage message = new EchoMessage(
+            "{\"symbol\":\"ACME\",\"bid\":101.25,\"ask\":101.27,\"seq\":918273645}",
+            "/203.0.113.17:53422",
+            "/10.0.0.5:8443");
+
+    private final ByteBufferPool pool = new ArrayByteBufferPool();
+    private MessageCodec codec;
+    private ByteBuffer encoded;
+
+    @Setup
+    public void setUp() {
+        codec = new MessageCodecs(List.of(JsonMessageCodec.INSTANCE, CborMessageCodec.INSTANCE), codecName).selected();
+
+        ByteBuffer out = ByteBuffer.allocate(codec.maxEncodedLength(message));
+        codec.encode(message, out);
+        encoded = out.flip();
+        if (!message.equals(codec.decode(encoded.duplicate()))) {
+            throw new IllegalStateException(codec.name() + " does not round trip");
+        }
+        System.out.println(codec.name() + " wire size: " + encoded.remaining() + " bytes");
+    }
+
+    @Benchmark
+    public int encode() {
+        RetainableByteBuffer buffer = pool.acquire(codec.maxEncodedLength(message), false);
+        try {
+            ByteBuffer byteBuffer = buffer.getByteBuffer();
+            BufferUtil.clearToFill(byteBuffer);
+            codec.encode(message, byteBuffer);
+            return byteBuffer.position();
+        } finally {
+            buffer.release();
+        }
+    }
+
+    @Benchmark
+    public EchoMessage decode() {
+        return codec.decode(encoded.duplicate());
+    }
+}
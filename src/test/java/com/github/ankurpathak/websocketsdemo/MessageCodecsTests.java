@@ -0,0 +1,33 @@
+package com.github.ankurpathak.websocketsdemo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+class MessageCodecsTests {
+
+    private final List<MessageCodec> codecs = List.of(JsonMessageCodec.INSTANCE, CborMessageCodec.INSTANCE);
+
+    @Test
+    void selectsCodecByName() {
+        assertThat(new MessageCodecs(codecs, "json").selected()).isSameAs(JsonMessageCodec.INSTANCE);
+        assertThat(new MessageCodecs(codecs, "cbor").selected()).isSameAs(CborMessageCodec.INSTANCE);
+    }
+
+    @Test
+    void rejectsUnknownName() {
+        assertThatIllegalArgumentException().isThrownBy(() -> new MessageCodecs(codecs, "xml"))
+                .withMessage("Unknown codec 'xml', available: [cbor, json]");
+    }
+
+    @Test
+    void rejectsDuplicateNames() {
+        assertThatIllegalStateException()
+                .isThrownBy(() -> new MessageCodecs(List.of(JsonMessageCodec.INSTANCE, JsonMessageCodec.INSTANCE), "json"))
+                .withMessage("Two codecs named json");
+    }
+}
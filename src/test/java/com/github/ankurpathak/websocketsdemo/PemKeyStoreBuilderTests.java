@@ -0,0 +1,84 @@
+package com.github.ankurpathak.websocketsdemo;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLParameters;
+import java.nio.file.Path;
+import java.security.KeyStore;
+import java.security.cert.X509Certificate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PemKeyStoreBuilderTests {
+
+    private static final String PASSWORD = "changeit";
+
+    @TempDir
+    Path dir;
+
+    @ParameterizedTest
+    @EnumSource(SelfSignedKeyStoreBuilder.KeyAlgorithm.class)
+    void servesTlsFromPem(SelfSignedKeyStoreBuilder.KeyAlgorithm algorithm) throws Exception {
+        writeCerts(new SelfSignedKeyStoreBuilder().keyAlgorithm(algorithm));
+
+        KeyStore keyStore = PemKeyStoreBuilder.fromCerts(dir, SslBundleConfig.ALIAS, SslBundleConfig.EC_ALIAS, PASSWORD);
+
+        assertThat(keyStore.size()).isEqualTo(1);
+        assertThat(serverKeyAlgorithm(keyStore, null)).isEqualTo(keyStore.getCertificate(SslBundleConfig.ALIAS).getPublicKey().getAlgorithm());
+    }
+
+    @Test
+    void servesDualCertificatesFromPem() throws Exception {
+        writeCerts(new SelfSignedKeyStoreBuilder()
+                .addKey(SslBundleConfig.EC_ALIAS, SelfSignedKeyStoreBuilder.KeyAlgorithm.EC_P256));
+
+        KeyStore keyStore = PemKeyStoreBuilder.fromCerts(dir, SslBundleConfig.ALIAS, SslBundleConfig.EC_ALIAS, PASSWORD);
+
+        assertThat(keyStore.size()).isEqualTo(2);
+        assertThat(serverKeyAlgorithm(keyStore, new String[]{"ecdsa_secp256r1_sha256"})).isEqualTo("EC");
+        assertThat(serverKeyAlgorithm(keyStore, new String[]{"rsa_pss_rsae_sha256", "rsa_pkcs1_sha256"})).isEqualTo("RSA");
+    }
+
+    private void writeCerts(SelfSignedKeyStoreBuilder builder) throws Exception {
+        KeyStore generated = builder
+                .alias(SslBundleConfig.ALIAS)
+                .password(PASSWORD.toCharArray())
+                .addDnsName("localhost")
+                .build();
+        CertificateGeneratorApp.writePem(generated, SslBundleConfig.ALIAS, PASSWORD.toCharArray(), dir, "cert");
+        if (generated.containsAlias(SslBundleConfig.EC_ALIAS)) {
+            CertificateGeneratorApp.writePem(generated, SslBundleConfig.EC_ALIAS, PASSWORD.toCharArray(), dir, "cert-ec");
+        }
+    }
+
+    /**
+     * Completes a TLS 1.3 handshake against the keystore and returns the key
+     * algorithm of the certificate the server presented.
+     */
+    private static String serverKeyAlgorithm(KeyStore keyStore, String[] signatureSchemes) throws Exception {
+        KeyManagerFactory kmf = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        kmf.init(keyStore, PASSWORD.toCharArray());
+        SSLContext serverContext = SSLContext.getInstance("TLSv1.3");
+        serverContext.init(kmf.getKeyManagers(), null, null);
+
+        SSLEngine client = TrustAllManager.sslContext("TLSv1.3").createSSLEngine();
+        client.setUseClientMode(true);
+        if (signatureSchemes != null) {
+            SSLParameters parameters = client.getSSLParameters();
+            parameters.setSignatureSchemes(signatureSchemes);
+            client.setSSLParameters(parameters);
+        }
+        SSLEngine server = serverContext.createSSLEngine();
+        server.setUseClientMode(false);
+
+        TlsHandshakeBenchmarkApp.handshake(client, server);
+
+        return ((X509Certificate) client.getSession().getPeerCertificates()[0]).getPublicKey().getAlgorithm();
+    }
+}
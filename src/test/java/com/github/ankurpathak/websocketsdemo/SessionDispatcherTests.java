@@ -0,0 +1,215 @@
+package com.github.ankurpathak.websocketsdemo;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class SessionDispatcherTests {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private SessionDispatcher dispatcher;
+
+    @AfterEach
+    void close() {
+        release.countDown();
+        dispatcher.close();
+    }
+
+    @Test
+    void runsEachSessionInOrder() throws InterruptedException {
+        dispatcher = new SessionDispatcher(2, 1000);
+        SessionDispatcher.Lane lane = dispatcher.register("session", "session");
+        List<Integer> seen = new ArrayList<>();
+        CountDownLatch done = new CountDownLatch(1000);
+
+        for (int i = 0; i < 1000; i++) {
+            int n = i;
+            run(lane, () -> {
+                seen.add(n);
+                done.countDown();
+            });
+        }
+
+        assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(seen).isSorted().hasSize(1000);
+    }
+
+    @Test
+    void reportsImbalanceFromCurrentDepth() throws InterruptedException {
+        dispatcher = new SessionDispatcher(2);
+        assertThat(dispatcher.imbalance()).isEqualTo(1.0);
+
+        SessionDispatcher.Lane lane = dispatcher.register("session", "session");
+        CountDownLatch done = new CountDownLatch(4);
+        run(lane, this::await);
+        for (int i = 0; i < 3; i++) {
+            run(lane, done::countDown);
+        }
+
+        // four tasks on one shard, none on the other
+        assertThat(dispatcher.imbalance()).isEqualTo(2.0);
+
+        release.countDown();
+        run(lane, done::countDown);
+        assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+        awaitIdle();
+        assertThat(dispatcher.imbalance()).isEqualTo(1.0);
+    }
+
+    @Test
+    void ranksHotSessionsByBacklogThenRecentMessages() throws InterruptedException {
+        // sampled by hand only
+        dispatcher = new SessionDispatcher(1, 256, Duration.ofDays(1));
+        SessionDispatcher.Lane busy = dispatcher.register("busy", "busy");
+        SessionDispatcher.Lane backlogged = dispatcher.register("backlogged", "backlogged");
+        SessionDispatcher.Lane chatty = dispatcher.register("chatty", "chatty");
+
+        for (int i = 0; i < 5; i++) {
+            run(chatty, () -> {
+            });
+        }
+        awaitIdle();
+        dispatcher.sample();
+        run(busy, this::await);
+        for (int i = 0; i < 3; i++) {
+            run(backlogged, () -> {
+            });
+        }
+
+        List<SessionDispatcher.SessionStats> hot = dispatcher.hotSessions(10);
+        assertThat(hot)
+                .extracting(SessionDispatcher.SessionStats::session)
+                .containsExactly("backlogged", "busy", "chatty");
+        assertThat(hot.getLast().recentMessages()).isEqualTo(5);
+        // reading changes nothing
+        assertThat(dispatcher.hotSessions(10)).isEqualTo(hot);
+
+        release.countDown();
+        awaitIdle();
+        for (int i = 0; i < 2; i++) {
+            run(chatty, () -> {
+            });
+        }
+        awaitIdle();
+        dispatcher.sample();
+
+        assertThat(dispatcher.hotSessions(10))
+                .allSatisfy(stats -> assertThat(stats.pending()).isZero())
+                .extracting(SessionDispatcher.SessionStats::session, SessionDispatcher.SessionStats::recentMessages)
+                .containsExactly(tuple("backlogged", 3L), tuple("chatty", 2L), tuple("busy", 1L));
+        assertThat(dispatcher.hotSessions(10).get(1).messages()).isEqualTo(7);
+    }
+
+    @Test
+    void samplesAtFixedInterval() throws InterruptedException {
+        dispatcher = new SessionDispatcher(1, 256, Duration.ofMillis(50));
+        SessionDispatcher.Lane lane = dispatcher.register("session", "session");
+        run(lane, () -> {
+        });
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (dispatcher.hotSessions(1).getFirst().recentMessages() == 0) {
+            assertThat(System.nanoTime()).isLessThan(deadline);
+            Thread.sleep(5);
+        }
+        // the next window has no messages
+        while (dispatcher.hotSessions(1).getFirst().recentMessages() != 0) {
+            assertThat(System.nanoTime()).isLessThan(deadline);
+            Thread.sleep(5);
+        }
+    }
+
+    @Test
+    void capsPendingMessagesUntilRepliesAreWritten() throws InterruptedException {
+        dispatcher = new SessionDispatcher(1, 2);
+        AtomicInteger demands = new AtomicInteger();
+        SessionDispatcher.Lane lane = dispatcher.register("session", "session", demands::incrementAndGet);
+        BlockingQueue<Runnable> unwritten = new LinkedBlockingQueue<>();
+
+        assertThat(lane.execute(unwritten::add)).isTrue();
+        assertThat(demands).hasValue(1);
+        // the second message fills the lane, no more is asked for
+        assertThat(lane.execute(unwritten::add)).isTrue();
+        assertThat(demands).hasValue(1);
+        assertThat(lane.execute(unwritten::add)).isFalse();
+
+        Runnable first = unwritten.poll(10, TimeUnit.SECONDS);
+        first.run();
+        first.run();
+        assertThat(demands).hasValue(2);
+        assertThat(dispatcher.hotSessions(1).getFirst().pending()).isEqualTo(1);
+
+        unwritten.poll(10, TimeUnit.SECONDS).run();
+        assertThat(demands).hasValue(2);
+        assertThat(dispatcher.hotSessions(1).getFirst().pending()).isZero();
+    }
+
+    @Test
+    void releasesMessageWhenTaskFails() throws InterruptedException {
+        dispatcher = new SessionDispatcher(1, 1);
+        SessionDispatcher.Lane lane = dispatcher.register("session", "session");
+
+        assertThat(lane.execute(_ -> {
+            throw new IllegalStateException("expected");
+        })).isTrue();
+        awaitIdle();
+
+        assertThat(dispatcher.hotSessions(1).getFirst().pending()).isZero();
+        assertThat(lane.execute(Runnable::run)).isTrue();
+    }
+
+    @Test
+    void stopsDemandingOnceUnregistered() throws InterruptedException {
+        dispatcher = new SessionDispatcher(1, 1);
+        AtomicInteger demands = new AtomicInteger();
+        SessionDispatcher.Lane lane = dispatcher.register("session", "session", demands::incrementAndGet);
+        BlockingQueue<Runnable> unwritten = new LinkedBlockingQueue<>();
+        lane.execute(unwritten::add);
+
+        dispatcher.unregister(lane);
+        unwritten.poll(10, TimeUnit.SECONDS).run();
+
+        assertThat(demands).hasValue(0);
+    }
+
+    /**
+     * Queues a task whose reply counts as written once it has run.
+     */
+    private static void run(SessionDispatcher.Lane lane, Runnable task) {
+        assertThat(lane.execute(written -> {
+            try {
+                task.run();
+            } finally {
+                written.run();
+            }
+        })).isTrue();
+    }
+
+    private void await() {
+        try {
+            release.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void awaitIdle() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (dispatcher.shardStats().stream().anyMatch(stats -> stats.depth() > 0)) {
+            assertThat(System.nanoTime()).isLessThan(deadline);
+            Thread.sleep(1);
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.github.ankurpathak.websocketsdemo;
+
+import org.eclipse.jetty.ee11.servlet.ServletContextHandler;
+import org.eclipse.jetty.ee11.websocket.jakarta.server.config.JakartaWebSocketServletContainerInitializer;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.server.handler.ContextHandler;
+import org.eclipse.jetty.websocket.server.WebSocketUpgradeHandler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * /ws over both upgrade paths, each on its own embedded Jetty server.
+ */
+class WebSocketEndpointTests {
+
+    enum UpgradePath {
+        NATIVE, JAKARTA
+    }
+
+    private static final int MAX_PENDING = 4;
+
+    private final SessionDispatcher dispatcher = new SessionDispatcher(1, MAX_PENDING);
+    private final HttpClient client = HttpClient.newHttpClient();
+    private Server server;
+
+    @AfterEach
+    void stop() throws Exception {
+        if (server != null) {
+            server.stop();
+        }
+        dispatcher.close();
+        client.shutdownNow();
+    }
+
+    @ParameterizedTest
+    @EnumSource(UpgradePath.class)
+    void echoesText(UpgradePath path) throws Exception {
+        URI uri = start(path, JsonMessageCodec.INSTANCE);
+        Frames frames = new Frames();
+        WebSocket webSocket = client.newWebSocketBuilder().buildAsync(uri, frames).get(5, TimeUnit.SECONDS);
+
+        webSocket.sendText("hello", true);
+
+        String reply = frames.text.get(5, TimeUnit.SECONDS);
+        assertThat(JsonMessageCodec.INSTANCE.decodeText(reply).message()).isEqualTo("hello");
+    }
+
+    @ParameterizedTest
+    @EnumSource(UpgradePath.class)
+    void echoesBinary(UpgradePath path) throws Exception {
+        URI uri = start(path, CborMessageCodec.INSTANCE);
+        Frames frames = new Frames();
+        WebSocket webSocket = client.newWebSocketBuilder().buildAsync(uri, frames).get(5, TimeUnit.SECONDS);
+
+        webSocket.sendBinary(cbor(EchoMessage.of("hello")), true);
+
+        ByteBuffer reply = frames.binary.get(5, TimeUnit.SECONDS);
+        assertThat(CborMessageCodec.INSTANCE.decode(reply).message()).isEqualTo("hello");
+    }
+
+    @ParameterizedTest
+    @EnumSource(UpgradePath.class)
+    void closesWith1003OnTheOtherFrameType(UpgradePath path) throws Exception {
+        URI uri = start(path, CborMessageCodec.INSTANCE);
+        Frames frames = new Frames();
+        WebSocket webSocket = client.newWebSocketBuilder().buildAsync(uri, frames).get(5, TimeUnit.SECONDS);
+
+        webSocket.sendText("hello", true);
+
+        assertThat(frames.close.get(5, TimeUnit.SECONDS)).isEqualTo(1003);
+    }
+
+    @ParameterizedTest
+    @EnumSource(UpgradePath.class)
+    void closesWith1007OnMalformedPayload(UpgradePath path) throws Exception {
+        URI uri = start(path, CborMessageCodec.INSTANCE);
+        Frames frames = new Frames();
+        WebSocket webSocket = client.newWebSocketBuilder().buildAsync(uri, frames).get(5, TimeUnit.SECONDS);
+
+        webSocket.sendBinary(ByteBuffer.wrap(new byte[]{1, 2, 3}), true);
+
+        assertThat(frames.close.get(5, TimeUnit.SECONDS)).isEqualTo(1007);
+        assertThat(frames.binary).isNotDone();
+    }
+
+    @ParameterizedTest
+    @EnumSource(UpgradePath.class)
+    void boundsRepliesToAClientThatStopsReading(UpgradePath path) throws Exception {
+        URI uri = start(path, JsonMessageCodec.INSTANCE);
+        // Never requests a frame, so once the socket buffers fill no reply completes
+        WebSocket webSocket = client.newWebSocketBuilder().buildAsync(uri, new WebSocket.Listener() {
+            @Override
+            public void onOpen(WebSocket webSocket) {
+            }
+        }).get(5, TimeUnit.SECONDS);
+
+        String message = "x".repeat(64 * 1024);
+        int sent = 0;
+        int maxPending = 0;
+        try {
+            for (; sent < 1_000; sent++) {
+                webSocket.sendText(message, true).get(2, TimeUnit.SECONDS);
+                maxPending = Math.max(maxPending, pending());
+            }
+        } catch (TimeoutException | ExecutionException e) {
+            // the server stopped reading, or closed the session
+        }
+        webSocket.abort();
+
+        assertThat(sent).isLessThan(1_000);
+        assertThat(maxPending).isLessThanOrEqualTo(MAX_PENDING);
+        assertThat(dispatcher.shardStats().getFirst().executed()).isLessThan(sent);
+    }
+
+    private int pending() {
+        return dispatcher.hotSessions(1).stream().mapToInt(SessionDispatcher.SessionStats::pending).sum();
+    }
+
+    private URI start(UpgradePath path, MessageCodec codec) throws Exception {
+        server = new Server();
+        ServerConnector connector = new ServerConnector(server);
+        connector.setPort(0);
+        server.addConnector(connector);
+
+        if (path == UpgradePath.NATIVE) {
+            WebSocketSessionRegistry registry = new WebSocketSessionRegistry();
+            ContextHandler context = new ContextHandler("/");
+            context.setHandler(WebSocketUpgradeHandler.from(server, container ->
+                    container.addMapping("/ws", (req, res, _) -> new Http2WebSocketHandler(server.getByteBufferPool(),
+                            registry, dispatcher, req.getConnectionMetaData().getConnector().getName(), codec))));
+            server.setHandler(context);
+        } else {
+            ServletContextHandler context = new ServletContextHandler("/");
+            JakartaWebSocketServletContainerInitializer.configure(context, (_, container) ->
+                    container.addEndpoint(Http1WebSocketHandler.endpointConfig(dispatcher, codec)));
+            server.setHandler(context);
+        }
+
+        server.start();
+        return URI.create("ws://localhost:" + connector.getLocalPort() + "/ws");
+    }
+
+    private static ByteBuffer cbor(EchoMessage message) {
+        ByteBuffer out = ByteBuffer.allocate(CborMessageCodec.INSTANCE.maxEncodedLength(message));
+        CborMessageCodec.INSTANCE.encode(message, out);
+        return out.flip();
+    }
+
+    /**
+     * Collects the first text and binary message and the close code. The JDK
+     * client may deliver a message in parts.
+     */
+    private static class Frames implements WebSocket.Listener {
+
+        final CompletableFuture<String> text = new CompletableFuture<>();
+        final CompletableFuture<ByteBuffer> binary = new CompletableFuture<>();
+        final CompletableFuture<Integer> close = new CompletableFuture<>();
+
+        private final StringBuilder textParts = new StringBuilder();
+        private final ByteArrayOutputStream binaryParts = new ByteArrayOutputStream();
+
+        @Override
+        public void onOpen(WebSocket webSocket) {
+            webSocket.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+            textParts.append(data);
+            if (last) {
+                text.complete(textParts.toString());
+            }
+            return null;
+        }
+
+        @Override
+        public CompletionStage<?> onBinary(WebSocket webSocket, ByteBuffer data, boolean last) {
+            byte[] bytes = new byte[data.remaining()];
+            data.get(bytes);
+            binaryParts.writeBytes(bytes);
+            if (last) {
+                binary.complete(ByteBuffer.wrap(binaryParts.toByteArray()));
+            }
+            return null;
+        }
+
+        @Override
+        public CompletionStage<?> onClose(WebSocket webSocket, int statusCode, String reason) {
+            close.complete(statusCode);
+            return null;
+        }
+
+        @Override
+        public void onError(WebSocket webSocket, Throwable error) {
+            close.completeExceptionally(error);
+        }
+    }
+}